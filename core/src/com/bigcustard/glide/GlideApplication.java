@@ -8,6 +8,7 @@ import com.bigcustard.glide.screen.ResourceManager;
 import com.bigcustard.glide.screen.RuntimeFacade;
 import com.bigcustard.glide.screen.ScreenFactory;
 import com.bigcustard.glide.screen.WelcomeScreen;
+import com.bigcustard.util.TaskScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +35,7 @@ public class GlideApplication extends com.badlogic.gdx.Game {
     @Override
     public void dispose() {
         logger.info("Someone is closing Glide!");
+        TaskScheduler.INSTANCE.shutdown();
     }
 
     private void showWelcomeScreen() {
@@ -1,17 +1,21 @@
 package com.bigcustard.glide.code;
 
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.IntMap;
+import com.bigcustard.glide.language.IncrementalSyntax;
 import com.bigcustard.glide.language.Syntax;
+import com.bigcustard.glide.language.SyntaxChecker;
 import com.bigcustard.scene2dplus.textarea.ColorCoder;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Joiner;
-import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.tuple.Pair;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.bigcustard.glide.code.SyntaxPart.Type.*;
 
@@ -32,6 +36,17 @@ public class CodeColorCoder implements ColorCoder {
     private final Color errorColor;
     private final Color runtimeErrorColor;
     private final Supplier<Pair<Integer, String>> errorProvider;
+    private final IncrementalSyntax incrementalSyntax;
+    private final SyntaxChecker syntaxChecker;
+    private final List<String> encodedLines = new ArrayList<>();
+    private final List<String> encodedRows = new ArrayList<>();
+    private final List<String> unmodifiableRows = Collections.unmodifiableList(encodedRows);
+    private final StringBuilder markup = new StringBuilder();
+    private final IntMap<Color> lineColours = new IntMap<>();
+    private String encoded;
+    private long encodedVersion = -1;
+    private long cacheHits;
+    private long cacheMisses;
 
     public CodeColorCoder(Supplier<Pair<Integer, String>> errorProvider, Syntax syntax) {
         this(errorProvider, syntax, DEFAULT_COLORS, DEFAULT_ERROR, DEFAULT_RUNTIME_ERROR);
@@ -41,23 +56,86 @@ public class CodeColorCoder implements ColorCoder {
     CodeColorCoder(Supplier<Pair<Integer, String>> errorProvider, Syntax syntax, Map<SyntaxPart.Type, String> colors, String errorColor, String runtimeErrorColor) {
         this.errorProvider = errorProvider;
         this.syntax = syntax;
+        this.incrementalSyntax = new IncrementalSyntax(syntax);
+        this.syntaxChecker = syntax.checker();
         this.colors = colors;
         this.errorColor = Color.valueOf(errorColor);
         this.runtimeErrorColor = Color.valueOf(runtimeErrorColor);
     }
 
+    public void addCheckedListener(Runnable listener) {
+        syntaxChecker.addCheckedListener(checker -> listener.run());
+    }
+
     @Override
     public String encode(String program) {
-        return FluentIterable
-                .from(syntax.parse(program))
-                .transform(this::colorCode)
-                .join(Joiner.on(""));
+        return encode(syntax.parse(program));
+    }
+
+    private String encode(List<SyntaxPart> syntaxParts) {
+        markup.setLength(0);
+        for (SyntaxPart syntaxPart : syntaxParts) {
+            colorCode(syntaxPart, markup);
+        }
+        return markup.toString();
+    }
+
+    @Override
+    public String encode(String program, long version) {
+        update(program, version);
+        if (encoded == null) {
+            markup.setLength(0);
+            encodedLines.forEach(markup::append);
+            encoded = markup.toString();
+        }
+        return encoded;
+    }
+
+    // The markup of each row on its own, without the newline, so rows can be drawn separately
+    @Override
+    public List<String> encodeLines(String program, long version) {
+        update(program, version);
+        return unmodifiableRows;
+    }
+
+    private void update(String program, long version) {
+        if (encodedVersion == version) {
+            cacheHits++;
+        } else {
+            cacheMisses++;
+            encodeChangedLines(program);
+            encoded = null;
+            encodedVersion = version;
+        }
+    }
+
+    private void encodeChangedLines(String program) {
+        IncrementalSyntax.Change change = incrementalSyntax.update(program);
+        int fromRow = change.fromRow();
+        encodedLines.subList(fromRow, fromRow + change.removedRows()).clear();
+        encodedRows.subList(fromRow, fromRow + change.removedRows()).clear();
+        List<String> inserted = incrementalSyntax.lines()
+                .subList(fromRow, fromRow + change.insertedRows())
+                .stream()
+                .map(line -> encode(line.parts()))
+                .collect(Collectors.toList());
+        encodedLines.addAll(fromRow, inserted);
+        encodedRows.addAll(fromRow, inserted.stream().map(line -> line.replace("\n", "")).collect(Collectors.toList()));
+    }
+
+    public long cacheHits() {
+        return cacheHits;
+    }
+
+    public long cacheMisses() {
+        return cacheMisses;
     }
 
     @Override
-    public Map<Integer, Color> colorLines(String program) {
-        HashMap<Integer, Color> lineColours = new HashMap<>();
-        Pair<Integer, String> error = syntax.error(program);
+    public IntMap<Color> colorLines(String program, long version) {
+        lineColours.clear();
+        syntaxChecker.check(program, version);
+        Pair<Integer, String> error = syntaxChecker.error();
         if (error != null) {
             lineColours.put(error.getLeft(), errorColor);
         }
@@ -68,13 +146,19 @@ public class CodeColorCoder implements ColorCoder {
         return lineColours;
     }
 
-    private String encodeSpecialCharacters(String program) {
-        return program.replace("[", "[[").replace("]", "]");
+    private void encodeSpecialCharacters(SyntaxPart syntaxPart, StringBuilder builder) {
+        CharSequence source = syntaxPart.source();
+        for (int i = syntaxPart.start(); i < syntaxPart.end(); i++) {
+            char character = source.charAt(i);
+            if (character == '[') builder.append('[');
+            builder.append(character);
+        }
     }
 
-    private String colorCode(SyntaxPart syntaxPart) {
+    private void colorCode(SyntaxPart syntaxPart, StringBuilder builder) {
         String color = colors.get(syntaxPart.type());
-        String text = encodeSpecialCharacters(syntaxPart.text());
-        return colors.containsKey(syntaxPart.type()) ? String.format("[%s]%s[]", color, text) : text;
+        if (color != null) builder.append('[').append(color).append(']');
+        encodeSpecialCharacters(syntaxPart, builder);
+        if (color != null) builder.append("[]");
     }
 }
@@ -5,50 +5,45 @@ import com.badlogic.gdx.utils.Disposable;
 import com.bigcustard.glide.code.language.Language;
 import com.bigcustard.scene2dplus.command.CommandHistory;
 import com.bigcustard.scene2dplus.image.ImageGroup;
+import com.bigcustard.scene2dplus.image.ImageModel;
 import com.bigcustard.scene2dplus.sound.SoundGroup;
+import com.bigcustard.scene2dplus.sound.SoundModel;
 import com.bigcustard.util.Watchable;
 import com.google.common.base.Objects;
 import org.apache.commons.lang3.tuple.Pair;
 
 import javax.script.ScriptException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public class Game implements Disposable {
     public static final String DEFAULT_NAME = "Unnamed Game";
     private final Token token;
-//    private final ScheduledFuture<?> errorChecker;
-    private final ScheduledExecutorService executorService;
     private Watchable<Game> me = new Watchable<>();
     private final ImageGroup imageGroup;
     private final SoundGroup soundGroup;
+    private final GameJournal journal;
     private CommandHistory commandHistory;
     private RuntimeException runtimeError;
+    private Pair<Integer, String> runtimeErrorLocation;
     private boolean isModified;
     private String code;
 
     private static int count;
 
-    public Game(Token token, String code, ImageGroup imageGroup, SoundGroup soundGroup) {
+    public Game(Token token, String code, ImageGroup imageGroup, SoundGroup soundGroup, GameJournal journal) {
         this.token = token;
         this.commandHistory = new CommandHistory();
         this.code = code;
         this.soundGroup = soundGroup;
         this.imageGroup = imageGroup;
+        this.journal = journal;
+        this.commandHistory.watch(journal);
+        this.journal.resources("image", imageNames());
+        this.journal.resources("sound", soundNames());
         this.soundGroup.watch((image) -> onSoundChange());
         this.imageGroup.watch((image) -> onImageChange());
-
-        executorService = Executors.newSingleThreadScheduledExecutor();
-//        errorChecker = executorService.scheduleAtFixedRate(() -> {
-//            Pair<Integer, String> error = language().syntax().error(code());
-//            if ((error == null && runtimeError() != null) ||
-//                    (error != null && !error.getRight().equals(runtimeError()))) {
-//                runtimeError(error == null ? null : new RuntimeException(error.getRight()));
-//            }
-//        }, 1, 1, TimeUnit.SECONDS);
     }
 
     public Token token() {
@@ -71,6 +66,10 @@ public class Game implements Disposable {
         return commandHistory;
     }
 
+    public GameJournal journal() {
+        return journal;
+    }
+
     public ImageGroup imageGroup() {
         return imageGroup;
     }
@@ -99,11 +98,18 @@ public class Game implements Disposable {
 
     public void runtimeError(RuntimeException runtimeError) {
         this.runtimeError = runtimeError;
+        this.runtimeErrorLocation = null;
         me.broadcast(this);
     }
 
+    // Asked for on every frame while the error is highlighted, so it is only located once
     public Pair<Integer, String> runtimeError() {
         if (runtimeError == null) return null;
+        if (runtimeErrorLocation == null) runtimeErrorLocation = locateRuntimeError();
+        return runtimeErrorLocation;
+    }
+
+    private Pair<Integer, String> locateRuntimeError() {
         try {
             Throwable cause = runtimeError;
             while (cause != null) {
@@ -123,6 +129,7 @@ public class Game implements Disposable {
 
     private void onImageChange() {
         imageGroup.save();
+        journal.resources("image", imageNames());
         me.broadcast(this);
         isModified = true;
     }
@@ -130,10 +137,27 @@ public class Game implements Disposable {
     private void onSoundChange() {
         soundGroup.save();
         imageGroup.save();
+        journal.resources("sound", soundNames());
         me.broadcast(this);
         isModified = true;
     }
 
+    private Map<String, String> imageNames() {
+        Map<String, String> names = new LinkedHashMap<>();
+        for (ImageModel image : imageGroup.images()) {
+            names.put(image.filename(), image.name().get());
+        }
+        return names;
+    }
+
+    private Map<String, String> soundNames() {
+        Map<String, String> names = new LinkedHashMap<>();
+        for (SoundModel sound : soundGroup.sounds()) {
+            names.put(sound.filename(), sound.name().get());
+        }
+        return names;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -161,8 +185,6 @@ public class Game implements Disposable {
         imageGroup.dispose();
         soundGroup.dispose();
         me.dispose();
-//        errorChecker.cancel(true);
-        executorService.shutdown();
         System.gc();
         count--;
     }
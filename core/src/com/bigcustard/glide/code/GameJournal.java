@@ -0,0 +1,396 @@
+package com.bigcustard.glide.code;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.bigcustard.scene2dplus.XY;
+import com.bigcustard.scene2dplus.command.Command;
+import com.bigcustard.scene2dplus.command.CommandHistory;
+import com.bigcustard.scene2dplus.textarea.TextAreaModel;
+import com.bigcustard.scene2dplus.textarea.command.AbstractTextAreaCommand;
+import com.bigcustard.scene2dplus.textarea.command.RecordedEditCommand;
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Append-only record of a game's undo history, kept in the game folder so the history outlives the session.
+// Records are held in memory until the game is saved, then written just before the code together with a marker carrying
+// the hash of the code about to be saved. Loading keeps the history as it was at the latest marker matching the code on
+// disk, so a crash before the code is written falls back to the previous save, and one after it keeps the new records. Each line carries a checksum so a
+// line torn by a crash is skipped, and once enough records build up the file is rewritten as the history alone.
+public class GameJournal implements CommandHistory.Listener {
+    private static final int MAX_STEPS = 1000;
+    private static final int COMPACT_AFTER_RECORDS = 5000;
+    private static final String OPENED = "opened";
+    private static final String SAVED = "saved";
+    private static final String STEP = "step";
+    private static final String MERGE = "merge";
+    private static final String COMMAND = "command";
+    private static final String UNDO = "undo";
+    private static final String REDO = "redo";
+    private static final String RESOURCE = "resource";
+
+    private final List<String> pending = new ArrayList<>();
+    private final Map<String, Map<String, String>> resourceNames = new HashMap<>();
+    private String loadedCode;
+    private String loadedHash;
+    private long sessionStart = -1;
+    private boolean sessionWritten;
+    private boolean restored;
+    private int records;
+
+    public GameJournal(String loadedCode) {
+        this.loadedCode = loadedCode;
+    }
+
+    @Override
+    public void executed(Command command, boolean merged) {
+        if (command instanceof AbstractTextAreaCommand) {
+            AbstractTextAreaCommand textCommand = (AbstractTextAreaCommand) command;
+            append(stepRecord(merged ? MERGE : STEP, state(textCommand.stateBefore()), state(textCommand.stateAfter()), textCommand.edits()));
+        } else {
+            append(record(COMMAND));
+        }
+    }
+
+    @Override
+    public void undone() {
+        append(record(UNDO));
+    }
+
+    @Override
+    public void redone() {
+        append(record(REDO));
+    }
+
+    // Records the resources added, removed and renamed since the last call for the same kind of resource
+    public void resources(String kind, Map<String, String> namesByFilename) {
+        synchronized (pending) {
+            Map<String, String> before = resourceNames.put(kind, new HashMap<>(namesByFilename));
+            if (before == null) return;
+            namesByFilename.forEach((filename, name) -> {
+                if (!before.containsKey(filename)) {
+                    append(record(RESOURCE, kind, "add", filename, name));
+                } else if (!Objects.equals(before.get(filename), name)) {
+                    append(record(RESOURCE, kind, "rename", filename, before.get(filename), name));
+                }
+            });
+            before.forEach((filename, name) -> {
+                if (!namesByFilename.containsKey(filename)) append(record(RESOURCE, kind, "remove", filename, name));
+            });
+        }
+    }
+
+    public synchronized void save(FileHandle file, String code, Runnable writeCode) {
+        List<String> unwritten;
+        synchronized (pending) {
+            unwritten = new ArrayList<>(pending);
+            pending.clear();
+        }
+        if (unwritten.isEmpty()) {
+            writeCode.run();
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        if (!sessionWritten) {
+            markSessionStart(file);
+            if (sessionStart > 0) text.append('\n');
+            text.append(record(OPENED, loadedHash()));
+            sessionWritten = true;
+        }
+        unwritten.forEach(text::append);
+        text.append(record(SAVED, hash(code)));
+        file.writeString(text.toString(), true, UTF_8.name());
+        writeCode.run();
+        records += unwritten.size() + 2;
+        if (restored && records > COMPACT_AFTER_RECORDS) compact(file, hash(code));
+    }
+
+    // Reads the history as it stood when the game was opened, ignoring anything written since
+    public synchronized History restore(FileHandle file) {
+        markSessionStart(file);
+        Replay replay = new Replay();
+        if (sessionStart > 0) records += replay.read(file, sessionStart);
+        replay.open(loadedHash());
+        restored = true;
+        return new History(replay.steps, replay.executed);
+    }
+
+    private void compact(FileHandle file, String savedHash) {
+        Replay replay = new Replay();
+        replay.read(file, file.length());
+        StringBuilder text = new StringBuilder();
+        for (Step step : replay.steps) {
+            text.append(step.record());
+        }
+        for (int i = replay.executed; i < replay.steps.size(); i++) {
+            text.append(record(UNDO));
+        }
+        text.append(record(SAVED, savedHash));
+        FileHandle compacted = file.sibling(file.name() + ".tmp");
+        compacted.writeString(text.toString(), false, UTF_8.name());
+        compacted.moveTo(file);
+        records = replay.steps.size() + (replay.steps.size() - replay.executed) + 1;
+    }
+
+    private void markSessionStart(FileHandle file) {
+        if (sessionStart < 0) sessionStart = file.exists() ? file.length() : 0;
+    }
+
+    private String loadedHash() {
+        if (loadedHash == null) {
+            loadedHash = hash(loadedCode);
+            loadedCode = null;
+        }
+        return loadedHash;
+    }
+
+    private void append(String record) {
+        synchronized (pending) {
+            pending.add(record);
+        }
+    }
+
+    private static String hash(String code) {
+        return Hashing.sha256().hashString(code, UTF_8).toString();
+    }
+
+    private static String state(TextAreaModel.State state) {
+        XY location = state.caretLocation();
+        Pair<XY, XY> selection = state.caretSelection();
+        String text = location.x + "," + location.y;
+        if (selection != null) {
+            text += "," + selection.getLeft().x + "," + selection.getLeft().y + "," + selection.getRight().x + "," + selection.getRight().y;
+        }
+        return text;
+    }
+
+    private static TextAreaModel.State state(TextAreaModel model, String text) {
+        String[] numbers = text.split(",");
+        int[] values = new int[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            values[i] = Integer.parseInt(numbers[i]);
+        }
+        Pair<XY, XY> selection = values.length == 6 ? Pair.of(new XY(values[2], values[3]), new XY(values[4], values[5])) : null;
+        return model.state(new XY(values[0], values[1]), selection);
+    }
+
+    private static String stepRecord(String type, String stateBefore, String stateAfter, List<TextAreaModel.Edit> edits) {
+        List<String> fields = new ArrayList<>();
+        fields.add(type);
+        fields.add(stateBefore);
+        fields.add(stateAfter);
+        for (TextAreaModel.Edit edit : edits) {
+            fields.add(Integer.toString(edit.index()));
+            fields.add(edit.removed());
+            fields.add(edit.inserted());
+        }
+        return record(fields.toArray(new String[fields.size()]));
+    }
+
+    private static String record(String... fields) {
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) payload.append('\t');
+            escape(fields[i], payload);
+        }
+        return checksum(payload.toString()) + " " + payload + "\n";
+    }
+
+    private static String[] parse(String line) {
+        int space = line.indexOf(' ');
+        if (space <= 0) return null;
+        String payload = line.substring(space + 1);
+        if (!line.substring(0, space).equals(checksum(payload))) return null;
+        String[] fields = payload.split("\t", -1);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = unescape(fields[i]);
+        }
+        return fields;
+    }
+
+    private static String checksum(String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static void escape(String field, StringBuilder builder) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\': builder.append("\\\\"); break;
+                case '\t': builder.append("\\t"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                default: builder.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String field) {
+        if (field.indexOf('\\') == -1) return field;
+        StringBuilder builder = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                char escaped = field.charAt(++i);
+                builder.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    public static class History {
+        private final List<Step> steps;
+        private final int executed;
+
+        private History(List<Step> steps, int executed) {
+            this.steps = steps;
+            this.executed = executed;
+        }
+
+        public int size() {
+            return steps.size();
+        }
+
+        public int executed() {
+            return executed;
+        }
+
+        public void restoreInto(CommandHistory commandHistory, TextAreaModel model) {
+            List<Command> commands = steps.stream().map(step -> step.command(model)).collect(Collectors.toList());
+            commandHistory.restore(commands, executed);
+        }
+    }
+
+    // Rebuilds the history from the records, without touching any text
+    private static class Replay {
+        private List<Step> steps = new ArrayList<>();
+        private int executed;
+        private final Map<String, Saved> savesByHash = new HashMap<>();
+
+        private int read(FileHandle file, long length) {
+            int count = 0;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(ByteStreams.limit(file.read(), length), UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    String[] fields = parse(line);
+                    if (fields != null) {
+                        apply(fields);
+                        count++;
+                    }
+                }
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+            return count;
+        }
+
+        private void apply(String[] fields) {
+            switch (fields[0]) {
+                case STEP: push(Step.from(fields)); break;
+                case MERGE: merge(Step.from(fields)); break;
+                case COMMAND: push(Step.OTHER); break;
+                case UNDO: if (executed > 0) executed--; break;
+                case REDO: if (executed < steps.size()) executed++; break;
+                case SAVED: save(fields[1]); break;
+                case OPENED: open(fields[1]); break;
+            }
+        }
+
+        private void push(Step step) {
+            steps.subList(executed, steps.size()).clear();
+            steps.add(step);
+            executed++;
+            if (steps.size() > MAX_STEPS) {
+                steps.remove(0);
+                executed--;
+            }
+        }
+
+        private void merge(Step step) {
+            if (executed > 0 && executed == steps.size() && steps.get(executed - 1) != Step.OTHER) {
+                steps.set(executed - 1, steps.get(executed - 1).merge(step));
+            } else {
+                push(step);
+            }
+        }
+
+        private void save(String hash) {
+            savesByHash.put(hash, new Saved(new ArrayList<>(steps), executed));
+        }
+
+        // A session starts from the latest save of the code it opened. Commands other than text edits can't be rebuilt,
+        // and as they never touch the text, leaving them out doesn't change what the text edits undo to.
+        private void open(String hash) {
+            Saved saved = savesByHash.get(hash);
+            steps = saved != null ? new ArrayList<>(saved.steps) : new ArrayList<>();
+            executed = saved != null ? saved.executed : 0;
+            for (int i = steps.size() - 1; i >= 0; i--) {
+                if (steps.get(i) == Step.OTHER) {
+                    steps.remove(i);
+                    if (i < executed) executed--;
+                }
+            }
+        }
+    }
+
+    private static class Saved {
+        private final List<Step> steps;
+        private final int executed;
+
+        private Saved(List<Step> steps, int executed) {
+            this.steps = steps;
+            this.executed = executed;
+        }
+    }
+
+    private static class Step {
+        private static final Step OTHER = new Step(null, null, null);
+        private final String stateBefore;
+        private final String stateAfter;
+        private final List<TextAreaModel.Edit> edits;
+
+        private Step(String stateBefore, String stateAfter, List<TextAreaModel.Edit> edits) {
+            this.stateBefore = stateBefore;
+            this.stateAfter = stateAfter;
+            this.edits = edits;
+        }
+
+        private static Step from(String[] fields) {
+            List<TextAreaModel.Edit> edits = new ArrayList<>();
+            for (int i = 3; i + 2 < fields.length; i += 3) {
+                edits.add(new TextAreaModel.Edit(Integer.parseInt(fields[i]), fields[i + 1], fields[i + 2]));
+            }
+            return new Step(fields[1], fields[2], edits);
+        }
+
+        private Step merge(Step next) {
+            List<TextAreaModel.Edit> merged = new ArrayList<>(edits);
+            merged.addAll(next.edits);
+            return new Step(stateBefore, next.stateAfter, merged);
+        }
+
+        private Command command(TextAreaModel model) {
+            return new RecordedEditCommand(model, state(model, stateBefore), new ArrayList<>(edits), state(model, stateAfter));
+        }
+
+        private String record() {
+            return this == OTHER ? GameJournal.record(COMMAND) : stepRecord(STEP, stateBefore, stateAfter, edits);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
 public class GameStore {
     private static final String PREFERENCES_KEY = "Game";
     private static final String BUILD_FOLDER = "build";
+    private static final String JOURNAL_FILE = "history.journal";
     private static String CODE_FILE_WITHOUT_SUFFIX = "code";
     private static String USER_FOLDER = "mygames";
     private static String SAMPLES_FOLDER = "samples";
@@ -45,14 +46,17 @@ public class GameStore {
     }
 
     public void save(Game game) {
-        codeFile(game).writeString(game.code(), false);
+        String code = game.code();
+        FileHandle codeFile = codeFile(game);
+        game.journal().save(journalFile(game), code, () -> codeFile.writeString(code, false));
         storeMostRecentGameName(game);
     }
 
     public Game create(Language language) {
         FileHandle gameFolder = findUniqueName();
         Game.Token token = new Game.Token(gameFolder.name(), language, gameFolder);
-        return new Game(token, language.template(), new ImageGroup(gameFolder), new SoundGroup(gameFolder));
+        String code = language.template();
+        return new Game(token, code, new ImageGroup(gameFolder), new SoundGroup(gameFolder), new GameJournal(code));
     }
 
     public boolean hasMostRecent() {
@@ -71,6 +75,10 @@ public class GameStore {
         return allGames(samplesFolder());
     }
 
+    public FileHandle journalFile(Game game) {
+        return gameFolder(game.name()).child(JOURNAL_FILE);
+    }
+
     public FileHandle buildFolder(Game game) {
         return gameFolder(game.name()).child(BUILD_FOLDER);
     }
@@ -155,6 +163,7 @@ public class GameStore {
         FileHandle codeFile = codeFile(token.gameFolder());
         ImageGroup imageGroup = new ImageGroup(token.gameFolder());
         SoundGroup soundGroup = new SoundGroup(token.gameFolder());
-        return new Game(token, codeFile.readString(), imageGroup, soundGroup);
+        String code = codeFile.readString();
+        return new Game(token, code, imageGroup, soundGroup, new GameJournal(code));
     }
 }
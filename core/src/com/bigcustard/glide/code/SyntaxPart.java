@@ -1,27 +1,52 @@
 package com.bigcustard.glide.code;
 
 
+// A typed range of the source text; the text itself is only copied out when asked for.
 public class SyntaxPart {
-	private String text;
+	private final CharSequence source;
+	private final int start;
+	private int end;
 	private Type type;
 
-	public SyntaxPart(String text, Type type) {
-		this.text = text;
+	public SyntaxPart(CharSequence source, int start, int end, Type type) {
+		this.source = source;
+		this.start = start;
+		this.end = end;
 		this.type = type;
 	}
 
+	public SyntaxPart(String text, Type type) {
+		this(text, 0, text.length(), type);
+	}
+
     public Type type() {
         return type;
     }
 
     public String text() {
-        return text;
+        return source.subSequence(start, end).toString();
+    }
+
+    public CharSequence source() {
+        return source;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
     }
 
     public void type(Type type) {
         this.type = type;
     }
 
+    public void end(int end) {
+        this.end = end;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -29,7 +54,7 @@ public class SyntaxPart {
 
         SyntaxPart that = (SyntaxPart) o;
 
-        if (!text.equals(that.text)) return false;
+        if (!text().equals(that.text())) return false;
         if (type != that.type) return false;
 
         return true;
@@ -37,7 +62,7 @@ public class SyntaxPart {
 
     @Override
     public int hashCode() {
-        int result = text.hashCode();
+        int result = text().hashCode();
         result = 31 * result + type.hashCode();
         return result;
     }
@@ -45,7 +70,7 @@ public class SyntaxPart {
     @Override
     public String toString() {
         return "SyntaxPart{" +
-                "text='" + text + '\'' +
+                "text='" + text() + '\'' +
                 ", type=" + type +
                 '}';
     }
@@ -54,4 +79,3 @@ public class SyntaxPart {
 		Keyword, Operator, Comment, Quoted, UnclosedQuote, Unclassified
 	}
 }
-
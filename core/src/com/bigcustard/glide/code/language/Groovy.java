@@ -4,7 +4,10 @@ import com.bigcustard.glide.language.GroovyKeywords;
 import com.bigcustard.scene2dplus.textarea.TextAreaModel;
 import groovy.lang.GroovyClassLoader;
 import org.apache.commons.lang3.tuple.Pair;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.MultipleCompilationErrorsException;
+import org.codehaus.groovy.control.Phases;
 import org.codehaus.groovy.control.messages.Message;
 import org.codehaus.groovy.control.messages.SyntaxErrorMessage;
 import org.codehaus.groovy.syntax.SyntaxException;
@@ -15,6 +18,8 @@ import java.util.Set;
 
 public class Groovy extends Language {
     public static final String TEMPLATE = "//  My Game written by me!  2016";
+    private static final CompilerConfiguration CHECK_CONFIGURATION = new CompilerConfiguration();
+    private final GroovyClassLoader checkClassLoader = new GroovyClassLoader(Groovy.class.getClassLoader(), CHECK_CONFIGURATION);
 
     public Groovy() {
         super(new GroovyKeywords(), "groovy", "groovy-button", TEMPLATE);
@@ -24,7 +29,7 @@ public class Groovy extends Language {
     @SuppressWarnings("unchecked")
     public Pair<Integer, String> errorChecker(String code) {
         try {
-            new GroovyClassLoader().parseClass(code);
+            parse(code);
         } catch (MultipleCompilationErrorsException e) {
             List<Message> errors = e.getErrorCollector().getErrors();
             if (errors.size() > 0) {
@@ -42,6 +47,13 @@ public class Groovy extends Language {
         return null;
     }
 
+    // Stops once the source has been parsed into an AST, so a check never generates or loads a class
+    private void parse(String code) {
+        CompilationUnit compilationUnit = new CompilationUnit(CHECK_CONFIGURATION, null, checkClassLoader);
+        compilationUnit.addSource("script", code);
+        compilationUnit.compile(Phases.CONVERSION);
+    }
+
     @Override
     public String vetoPreInsert(String characters, TextAreaModel textAreaModel) {
         if (currentLineEndsInOpeningBrace(textAreaModel) && characters.matches("\n\\s*")) {
@@ -1,17 +1,38 @@
 package com.bigcustard.glide.code.language;
 
 import com.bigcustard.glide.language.JavascriptKeywords;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
+import javax.script.Compilable;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
 public class Javascript extends Language {
     public static final String TEMPLATE = "//  My Game written by me!  2016";
+    private static final String WARM_UP_PROGRAM = "(";
+    private final Supplier<Compilable> checkEngine = Suppliers.memoize(() -> (Compilable) new ScriptEngineManager().getEngineByName("nashorn"));
 
     public Javascript() {
         super(new JavascriptKeywords(), "js", "javascript-button", TEMPLATE);
+        syntax().warmUp(WARM_UP_PROGRAM);
     }
 
+    // Compiles without evaluating. Nashorn's message starts "<eval>:line:column" and is followed by the offending source.
     @Override
     public Pair<Integer, String> errorChecker(String code) {
+        Compilable engine = checkEngine.get();
+        if (engine == null) return null;
+        try {
+            synchronized (engine) {
+                engine.compile(code);
+            }
+        } catch (ScriptException e) {
+            String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            return Pair.of(e.getLineNumber() - 1, StringUtils.substringAfter(StringUtils.substringBefore(message, "\n"), " "));
+        }
         return null;
     }
 }
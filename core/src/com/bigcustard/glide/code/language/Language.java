@@ -42,6 +42,12 @@ public abstract class Language {
         return new CodeColorCoder(errorSupplier, syntax);
     }
 
+    public ColorCoder codeColorCoder(Supplier<Pair<Integer, String>> errorSupplier, Runnable onChecked) {
+        CodeColorCoder colorCoder = new CodeColorCoder(errorSupplier, syntax);
+        colorCoder.addCheckedListener(onChecked);
+        return colorCoder;
+    }
+
     public String scriptEngine() {
         return scriptEngine;
     }
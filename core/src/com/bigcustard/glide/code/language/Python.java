@@ -1,24 +1,37 @@
 package com.bigcustard.glide.code.language;
 
-import com.bigcustard.glide.language.JavascriptKeywords;
 import com.bigcustard.glide.language.PythonKeywords;
-import com.google.common.base.Strings;
 import org.apache.commons.lang3.tuple.Pair;
+import org.python.core.CompileMode;
+import org.python.core.CompilerFlags;
+import org.python.core.ParserFacade;
 import org.python.core.PyBaseException;
 import org.python.core.PyException;
 import org.python.core.PyObject;
-import org.python.core.PyObjectDerived;
 import org.python.core.PyTraceback;
+import org.python.core.PyTuple;
 
 public class Python extends Language {
     public static final String TEMPLATE = "##  My Game written by me!  2016";
+    private static final String WARM_UP_PROGRAM = "(";
 
     public Python() {
         super(new PythonKeywords(), "py", "python-button", TEMPLATE);
+        syntax().warmUp(WARM_UP_PROGRAM);
     }
 
+    // Parses without compiling or running anything. Jython reports a syntax error as (message, (file, line, column, text)).
     @Override
     public Pair<Integer, String> errorChecker(String code) {
+        try {
+            ParserFacade.parse(code, CompileMode.exec, "script", new CompilerFlags());
+        } catch (PyException e) {
+            if (e.value instanceof PyTuple && e.value.__len__() == 2) {
+                PyObject position = e.value.__getitem__(1);
+                return Pair.of(position.__getitem__(1).asInt() - 1, e.value.__getitem__(0).toString());
+            }
+            System.out.println("Failed to parse code: " + e);
+        }
         return null;
     }
 
@@ -2,7 +2,10 @@ package com.bigcustard.glide.code.language;
 
 import com.bigcustard.glide.language.RubyKeywords;
 import com.bigcustard.scene2dplus.textarea.TextAreaModel;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import org.apache.commons.lang3.tuple.Pair;
+import org.jcodings.specific.UTF8Encoding;
 import org.jruby.RubyInstanceConfig;
 import org.jruby.common.NullWarnings;
 import org.jruby.lexer.yacc.LexerSource;
@@ -10,25 +13,28 @@ import org.jruby.parser.ParserConfiguration;
 import org.jruby.parser.Ruby20Parser;
 import org.jruby.parser.RubyParser;
 
-import java.io.StringBufferInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 public class Ruby extends Language {
     public static final String TEMPLATE = "##  My Game written by me!  2016";
+    private static final String WARM_UP_PROGRAM = "(";
+    // The parser takes scopes, symbols and encodings from a runtime, so it can't do without one. The global runtime is
+    // used rather than starting a second one just for parsing, and it is looked up once rather than on every checker thread.
+    private static final Supplier<org.jruby.Ruby> PARSE_RUNTIME = Suppliers.memoize(org.jruby.Ruby::getGlobalRuntime);
+    private final ThreadLocal<ParseContext> parseContext = ThreadLocal.withInitial(ParseContext::new);
 
     public Ruby() {
         super(new RubyKeywords(), "rb", "ruby-button", TEMPLATE);
+        syntax().warmUp(WARM_UP_PROGRAM);
     }
 
     @Override
     public Pair<Integer, String> errorChecker(String code) {
         try {
-            RubyParser parser = new Ruby20Parser();
-            parser.setWarnings(new NullWarnings(null));
-            org.jruby.Ruby runtime = org.jruby.Ruby.getGlobalRuntime();
-            RubyInstanceConfig rconfig = new RubyInstanceConfig();
-            ParserConfiguration config = new ParserConfiguration(runtime, 0, false, false, true, rconfig);
-            LexerSource lexer = LexerSource.getSource("code", new StringBufferInputStream(code), null, config);
-            parser.parse(config, lexer);
+            parseContext.get().parse(code);
         } catch (org.jruby.lexer.yacc.SyntaxException e) {
             return Pair.of(e.getPosition().getLine(), e.getMessage());
         } catch (Exception e) {
@@ -48,4 +54,21 @@ public class Ruby extends Language {
     private boolean currentLineEndsInDo(TextAreaModel textAreaModel) {
         return textAreaModel.getCurrentLine().endsWith("do");
     }
+
+    // The parser resets its lexer and parser state at the start of every parse, so each thread keeps one and reuses it
+    private static class ParseContext {
+        private final RubyParser parser = new Ruby20Parser();
+        private final ParserConfiguration config =
+                new ParserConfiguration(PARSE_RUNTIME.get(), 0, false, false, true, new RubyInstanceConfig());
+
+        private ParseContext() {
+            parser.setWarnings(new NullWarnings(null));
+            config.setDefaultEncoding(UTF8Encoding.INSTANCE);
+        }
+
+        private void parse(String code) throws IOException {
+            InputStream source = new ByteArrayInputStream(code.getBytes(StandardCharsets.UTF_8));
+            parser.parse(config, LexerSource.getSource("code", source, null, config));
+        }
+    }
 }
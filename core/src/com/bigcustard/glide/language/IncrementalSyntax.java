@@ -0,0 +1,176 @@
+package com.bigcustard.glide.language;
+
+import com.bigcustard.glide.code.SyntaxPart;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bigcustard.glide.code.SyntaxPart.Type.*;
+
+// Keeps the parts of each line from the previous run, with the lexer state at the start of every line.
+// An update re-lexes only the lines that changed, carrying on until the state converges with the previous run.
+// Like the text area there is always one more line than there are newlines, so text ending in a newline has an empty last line.
+public class IncrementalSyntax {
+    private final Syntax syntax;
+    private List<Line> lines = new ArrayList<>();
+    private long linesParsed;
+
+    public IncrementalSyntax(Syntax syntax) {
+        this.syntax = syntax;
+    }
+
+    public List<Line> lines() {
+        return lines;
+    }
+
+    public long linesParsed() {
+        return linesParsed;
+    }
+
+    public Change update(String program) {
+        int firstChangedRow = 0;
+        int firstChangedIndex = 0;
+        while (firstChangedRow < lines.size() && isUnchanged(lines.get(firstChangedRow), program, firstChangedIndex)) {
+            firstChangedIndex += lines.get(firstChangedRow).text.length();
+            firstChangedRow++;
+        }
+        int unchangedRowsAtEnd = 0;
+        int lastChangedIndex = program.length();
+        while (unchangedRowsAtEnd < lines.size() - firstChangedRow &&
+                isUnchangedAtEnd(lines.get(lines.size() - 1 - unchangedRowsAtEnd), program, firstChangedIndex, lastChangedIndex)) {
+            lastChangedIndex -= lines.get(lines.size() - 1 - unchangedRowsAtEnd).text.length();
+            unchangedRowsAtEnd++;
+        }
+        if (firstChangedRow == lines.size() && !lines.isEmpty()) {
+            return new Change(firstChangedRow, 0, 0);
+        }
+
+        // A line inside a multi-line quote is coloured by whether the quote closes later, so start from the opening line
+        while (firstChangedRow > 0 && lines.get(firstChangedRow - 1).endsInsideQuote()) {
+            firstChangedRow--;
+            firstChangedIndex -= lines.get(firstChangedRow).text.length();
+        }
+
+        List<Line> parsed = new ArrayList<>();
+        int index = firstChangedIndex;
+        int oldRow = lines.size() - unchangedRowsAtEnd;
+        boolean insideQuote = false;
+        int quoteStart = -1;
+        while (true) {
+            if (index >= lastChangedIndex && oldRow < lines.size() && !insideQuote && !lines.get(oldRow).startsInsideQuote()) {
+                break;
+            }
+            int newline = program.indexOf('\n', index);
+            int end = newline == -1 ? program.length() : newline + 1;
+            Line line = parseLine(program.substring(index, end), insideQuote);
+            if (insideQuote && line.closesQuote()) {
+                closeQuote(parsed, quoteStart);
+                quoteStart = -1;
+            }
+            if (!line.endsInsideQuote()) {
+                quoteStart = -1;
+            } else if (quoteStart == -1) {
+                quoteStart = parsed.size();
+            }
+            parsed.add(line);
+            insideQuote = line.endsInsideQuote();
+            if (index >= lastChangedIndex && oldRow < lines.size()) oldRow++;
+            index = end;
+            if (newline == -1) break;
+        }
+        int removedRows = oldRow - firstChangedRow;
+        List<Line> updated = new ArrayList<>(lines.size() - removedRows + parsed.size());
+        updated.addAll(lines.subList(0, firstChangedRow));
+        updated.addAll(parsed);
+        updated.addAll(lines.subList(firstChangedRow + removedRows, lines.size()));
+        lines = updated;
+        return new Change(firstChangedRow, removedRows, parsed.size());
+    }
+
+    private Line parseLine(String text, boolean startsInsideQuote) {
+        linesParsed++;
+        return new Line(text, startsInsideQuote, syntax.parseLine(text, startsInsideQuote));
+    }
+
+    private void closeQuote(List<Line> parsed, int quoteStart) {
+        for (int i = quoteStart; i < parsed.size(); i++) {
+            for (SyntaxPart part : parsed.get(i).parts) {
+                if (part.type() == UnclosedQuote) part.type(Quoted);
+            }
+        }
+    }
+
+    private boolean isUnchanged(Line line, String program, int index) {
+        boolean completeLine = line.endsWithNewline() || index + line.text.length() == program.length();
+        return completeLine && program.startsWith(line.text, index);
+    }
+
+    private boolean isUnchangedAtEnd(Line line, String program, int firstChangedIndex, int endIndex) {
+        int index = endIndex - line.text.length();
+        boolean completeLine = index == firstChangedIndex || (index > firstChangedIndex && program.charAt(index - 1) == '\n');
+        boolean lastLineStaysLast = line.endsWithNewline() || endIndex == program.length();
+        return completeLine && lastLineStaysLast && program.startsWith(line.text, index);
+    }
+
+    public static class Line {
+        private final String text;
+        private final boolean startsInsideQuote;
+        private final boolean endsInsideQuote;
+        private final List<SyntaxPart> parts;
+
+        private Line(String text, boolean startsInsideQuote, List<SyntaxPart> parts) {
+            this.text = text;
+            this.startsInsideQuote = startsInsideQuote;
+            this.endsInsideQuote = endsWithNewline() && parts.get(parts.size() - 1).type() == UnclosedQuote;
+            this.parts = parts;
+        }
+
+        public String text() {
+            return text;
+        }
+
+        public List<SyntaxPart> parts() {
+            return parts;
+        }
+
+        public boolean startsInsideQuote() {
+            return startsInsideQuote;
+        }
+
+        private boolean closesQuote() {
+            return !parts.isEmpty() && parts.get(0).type() != UnclosedQuote;
+        }
+
+        private boolean endsInsideQuote() {
+            return endsInsideQuote;
+        }
+
+        private boolean endsWithNewline() {
+            return text.endsWith("\n");
+        }
+    }
+
+    public static class Change {
+        private final int fromRow;
+        private final int removedRows;
+        private final int insertedRows;
+
+        private Change(int fromRow, int removedRows, int insertedRows) {
+            this.fromRow = fromRow;
+            this.removedRows = removedRows;
+            this.insertedRows = insertedRows;
+        }
+
+        public int fromRow() {
+            return fromRow;
+        }
+
+        public int removedRows() {
+            return removedRows;
+        }
+
+        public int insertedRows() {
+            return insertedRows;
+        }
+    }
+}
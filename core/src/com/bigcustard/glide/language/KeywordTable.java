@@ -0,0 +1,54 @@
+package com.bigcustard.glide.language;
+
+// Open addressing set of words, looked up by a slice of the source so classifying a token allocates nothing.
+public class KeywordTable {
+    private final String[] slots;
+    private final int mask;
+
+    public KeywordTable(String[]... wordLists) {
+        int count = 0;
+        for (String[] words : wordLists) count += words.length;
+        int capacity = Integer.highestOneBit(Math.max(1, count) * 4 - 1) << 1;
+        slots = new String[capacity];
+        mask = capacity - 1;
+        for (String[] words : wordLists) {
+            for (String word : words) add(word);
+        }
+    }
+
+    public boolean contains(CharSequence text, int start, int end) {
+        for (int slot = hash(text, start, end) & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+            if (matches(slots[slot], text, start, end)) return true;
+        }
+        return false;
+    }
+
+    public boolean contains(CharSequence word) {
+        return contains(word, 0, word.length());
+    }
+
+    private void add(String word) {
+        int slot = hash(word, 0, word.length()) & mask;
+        while (slots[slot] != null) {
+            if (slots[slot].equals(word)) return;
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = word;
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String word, CharSequence text, int start, int end) {
+        if (word.length() != end - start) return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) != text.charAt(start + i)) return false;
+        }
+        return true;
+    }
+}
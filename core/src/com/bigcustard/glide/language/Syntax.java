@@ -1,112 +1,140 @@
 package com.bigcustard.glide.language;
 
-import com.badlogic.gdx.utils.Disposable;
 import com.bigcustard.glide.code.SyntaxPart;
+import com.bigcustard.util.TaskScheduler;
 import com.bigcustard.util.Tokenizer;
 import com.google.common.base.Function;
-import com.google.common.collect.Lists;
-import com.google.common.collect.ObjectArrays;
-import com.google.common.collect.Sets;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutionException;
 
 import static com.bigcustard.glide.code.SyntaxPart.Type.*;
+import static com.bigcustard.util.TaskScheduler.Priority.Background;
+import static com.bigcustard.util.TaskScheduler.Priority.Interactive;
 
-public class Syntax implements Disposable {
-    private static String[] TOKENS = new String[] {
+public class Syntax {
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+    private static final int CHECKED_PROGRAMS_CACHE_SIZE = 64;
+    private static final String[] TOKENS = new String[] {
             " ", "\t", "\n", "\r", "\f", "(", ")", "{", "}", "\"", ".", "[", "]", "==", "<", ">", "<=", ">=",
             "!", "!=", "=", "++", "*=", "/=", "--", "+=", "-=", "+", "-", " / ", "*", "&&", "||", ",", "$", "%", ";", ":"};
-    private Keywords languageKeywords;
+    private final Tokenizer tokenizer = new Tokenizer(TOKENS);
+    private final KeywordTable keywords;
+    private final String comment;
     private Function<String, Pair<Integer, String>> errorChecker;
 
-    private AtomicReference<Pair<Integer, String>> lastKnownResult = new AtomicReference<>();
-    private ExecutorService executorService = Executors.newFixedThreadPool(2);
-    private Future<?> futureSyntaxCheck;
+    // Undo and switching documents bring back text that has already been checked, so results are kept by hash of the program
+    private final Cache<HashCode, Optional<Pair<Integer, String>>> checkedPrograms =
+            CacheBuilder.newBuilder().maximumSize(CHECKED_PROGRAMS_CACHE_SIZE).build();
 
     public Syntax(Keywords languageKeywords, Function<String, Pair<Integer, String>> errorChecker) {
-        this.languageKeywords = languageKeywords;
+        this.keywords = new KeywordTable(new FrameworkKeywords().get(), languageKeywords.get());
+        this.comment = languageKeywords.comment();
         this.errorChecker = errorChecker;
     }
 
     public List<SyntaxPart> parse(String program) {
-        List<SyntaxPart> classifiedWordsAndSpaces = categoriseWordsIntoTypes(program);
-        return collapseAdjacentPartsWithSameType(classifiedWordsAndSpaces);
+        return parse(program, null);
     }
 
+    public List<SyntaxPart> parseLine(String line, boolean startsInsideQuote) {
+        return parse(line, startsInsideQuote ? UnclosedQuote : null);
+    }
+
+    // Asked on the render thread whenever the buttons refresh, so it never checks the program itself. A program not checked
+    // yet counts as valid while a check runs in the background, and the answer is there the next time it is asked.
     public boolean isValid(String program) {
-        return error(program) == null;
+        Optional<Pair<Integer, String>> knownError = checkedPrograms.getIfPresent(hash(program));
+        if (knownError == null) {
+            TaskScheduler.INSTANCE.submit(Interactive, () -> error(program));
+            return true;
+        }
+        return !knownError.isPresent();
     }
 
+    // Checks the program if it hasn't been checked already, so only call it off the render thread
     public Pair<Integer, String> error(String program) {
-        if (futureSyntaxCheck == null || futureSyntaxCheck.isDone()) {
-            futureSyntaxCheck = executorService.submit(() -> {
-                Pair<Integer, String> error = errorChecker.apply(program);
-                lastKnownResult.set(error);
-            });
+        HashCode hash = hash(program);
+        try {
+            return checkedPrograms.get(hash, () -> Optional.fromNullable(errorChecker.apply(program))).orNull();
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
         }
-        return lastKnownResult.get();
     }
 
-    @SuppressWarnings("unchecked")
-    private List<SyntaxPart> categoriseWordsIntoTypes(String program) {
-        List<String> wordsAndSpaces = new Tokenizer(program, TOKENS).run();
-        return Lists.transform(wordsAndSpaces, word -> new SyntaxPart(word, getType(word)));
+    private static HashCode hash(String program) {
+        return Hashing.sha256().hashString(program, StandardCharsets.UTF_8);
+    }
+
+    // Loads and initialises the language's parser in the background so the first real check is quick
+    public void warmUp(String program) {
+        TaskScheduler.INSTANCE.submit(Background, () -> errorChecker.apply(program));
     }
 
-    private List<SyntaxPart> collapseAdjacentPartsWithSameType(List<SyntaxPart> classifiedWordsAndSpaces) {
-        List<SyntaxPart> collapsed = new ArrayList<>();
-        for (SyntaxPart newElement : classifiedWordsAndSpaces) {
-            if (!collapsed.isEmpty()) {
-                SyntaxPart lastElement = collapsed.get(collapsed.size() - 1);
-                if (lastElement.type() == Comment && !newElement.text().contains("\n")) {
-                    newElement.type(Comment);
-                }
-                if (lastElement.type() == UnclosedQuote) {
-                    if (newElement.type() == UnclosedQuote) {
-                        lastElement.type(Quoted);
-                        newElement.type(Quoted);
-                    } else {
-                        newElement.type(UnclosedQuote);
-                    }
-                }
-
-                if (lastElement.type() == newElement.type()) {
-                    newElement = new SyntaxPart(lastElement.text() + newElement.text(), newElement.type());
-                    collapsed.remove(collapsed.size() - 1);
-                }
+    public SyntaxChecker checker() {
+        return checker(DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    public SyntaxChecker checker(long debounceMillis) {
+        return new SyntaxChecker(this::error, TaskScheduler.INSTANCE, debounceMillis);
+    }
+
+    // Parts are spans over the program, and adjacent words of the same type are merged by extending the previous span
+    private List<SyntaxPart> parse(String program, SyntaxPart.Type typeBefore) {
+        List<SyntaxPart> parts = new ArrayList<>();
+        tokenizer.scan(program, 0, program.length(), (start, end, delimiter) ->
+                addPart(parts, program, start, end, getType(program, start, end, delimiter), typeBefore));
+        return parts;
+    }
 
+    private void addPart(List<SyntaxPart> parts, String program, int start, int end, SyntaxPart.Type type, SyntaxPart.Type typeBefore) {
+        SyntaxPart lastElement = parts.isEmpty() ? null : parts.get(parts.size() - 1);
+        SyntaxPart.Type lastType = lastElement == null ? typeBefore : lastElement.type();
+        if (lastType == Comment && !containsNewline(program, start, end)) {
+            type = Comment;
+        }
+        if (lastType == UnclosedQuote) {
+            if (type == UnclosedQuote) {
+                if (lastElement != null) lastElement.type(Quoted);
+                type = Quoted;
+            } else {
+                type = UnclosedQuote;
             }
-            collapsed.add(newElement);
         }
-        return collapsed;
+
+        if (lastElement != null && lastElement.type() == type) {
+            lastElement.end(end);
+        } else {
+            parts.add(new SyntaxPart(program, start, end, type));
+        }
+    }
+
+    private boolean containsNewline(String program, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (program.charAt(i) == '\n') return true;
+        }
+        return false;
     }
 
-    private SyntaxPart.Type getType(String word) {
-        if (Sets.newHashSet(keywords()).contains(word)) {
+    private SyntaxPart.Type getType(String program, int start, int end, boolean delimiter) {
+        if (keywords.contains(program, start, end)) {
             return Keyword;
-        } else if (word.startsWith(languageKeywords.comment())) {
+        } else if (program.startsWith(comment, start) && end - start >= comment.length()) {
             return Comment;
-        } else if (word.equals("\"")) {
+        } else if (end - start == 1 && program.charAt(start) == '"') {
             return UnclosedQuote;
-        } else if (Arrays.asList(TOKENS).contains(word)) {
+        } else if (delimiter) {
             return Operator;
         }
         return Unclassified;
     }
-
-    private String[] keywords() {
-        return ObjectArrays.concat(new FrameworkKeywords().get(), languageKeywords.get(), String.class);
-    }
-
-    @Override
-    public void dispose() {
-        executorService.shutdown();
-    }
 }
@@ -0,0 +1,67 @@
+package com.bigcustard.glide.language;
+
+import com.bigcustard.util.TaskScheduler;
+import com.bigcustard.util.Watchable;
+import com.google.common.base.Function;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static com.bigcustard.util.TaskScheduler.Priority.Interactive;
+
+// Checks one document in the background. A check is only scheduled when the content version changes, and only once
+// typing has paused for the debounce period; a newer version cancels any check still waiting for the older one.
+public class SyntaxChecker {
+    private final Function<String, Pair<Integer, String>> errorChecker;
+    private final TaskScheduler scheduler;
+    private final long debounceMillis;
+    private final AtomicReference<Result> lastKnownResult = new AtomicReference<>(new Result(0, null));
+    private final Watchable<SyntaxChecker> checkedWatchable = new Watchable<>();
+    private volatile long requestedVersion;
+    private Future<?> futureSyntaxCheck;
+
+    public SyntaxChecker(Function<String, Pair<Integer, String>> errorChecker, TaskScheduler scheduler, long debounceMillis) {
+        this.errorChecker = errorChecker;
+        this.scheduler = scheduler;
+        this.debounceMillis = debounceMillis;
+    }
+
+    public void check(String program, long version) {
+        if (version == requestedVersion) return;
+        requestedVersion = version;
+        if (futureSyntaxCheck != null) futureSyntaxCheck.cancel(false);
+        futureSyntaxCheck = scheduler.schedule(Interactive, () -> {
+            if (version != requestedVersion) return;
+            Pair<Integer, String> error = errorChecker.apply(program);
+            if (version == requestedVersion) {
+                lastKnownResult.set(new Result(version, error));
+                checkedWatchable.broadcast(this);
+            }
+        }, debounceMillis);
+    }
+
+    // Called on the checking thread whenever a new result is published
+    public void addCheckedListener(Consumer<SyntaxChecker> listener) {
+        checkedWatchable.watch(listener);
+    }
+
+    public Pair<Integer, String> error() {
+        return lastKnownResult.get().error;
+    }
+
+    public long checkedVersion() {
+        return lastKnownResult.get().version;
+    }
+
+    private static class Result {
+        private final long version;
+        private final Pair<Integer, String> error;
+
+        private Result(long version, Pair<Integer, String> error) {
+            this.version = version;
+            this.error = error;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Stage;
@@ -15,6 +16,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.bigcustard.glide.code.Game;
+import com.bigcustard.glide.code.GameJournal;
 import com.bigcustard.glide.code.GameStore;
 import com.bigcustard.glide.code.command.ExitCommand;
 import com.bigcustard.glide.code.command.RunCommand;
@@ -42,18 +44,19 @@ import com.bigcustard.scene2dplus.textarea.ScrollableTextArea;
 import com.bigcustard.scene2dplus.textarea.TextAreaModel;
 import com.bigcustard.scene2dplus.textarea.command.CopyCommand;
 import com.bigcustard.scene2dplus.textarea.command.PasteCommand;
+import com.bigcustard.util.TaskScheduler;
 import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static com.bigcustard.util.TaskScheduler.Priority.Autosave;
+import static com.bigcustard.util.TaskScheduler.Priority.Background;
+
 public class CodingScreen extends ScreenAdapter {
     private Skin skin;
     private Stage stage;
@@ -68,9 +71,8 @@ public class CodingScreen extends ScreenAdapter {
     private Help help;
     private Consumer<Screen> setScreen;
     private ScreenFactory screenFactory;
-    private ScheduledFuture<?> gameSavingProcess;
+    private Future<?> gameSavingProcess;
     private ButtonBar buttonBar;
-    private ScheduledExecutorService executorService;
     private Cell<ScrollableTextArea> exampleCell;
     private Table layoutTable;
     private ImageButtonPlus closeButton;
@@ -118,6 +120,7 @@ public class CodingScreen extends ScreenAdapter {
         createTextArea(game);
         createExampleArea(game.language());
         linkTextAreas();
+        renderOnChange();
         Label errorLabel = createErrorLabel(game);
         createResourceArea();
         buttonBar = createButtonBar();
@@ -136,8 +139,16 @@ public class CodingScreen extends ScreenAdapter {
     }
 
     private void linkTextAreas() {
-        model.addChangeListener(model -> { if (model.caret().isAreaSelected()) exampleModel.caret().clearSelection(); });
-        exampleModel.addChangeListener(exampleModel -> { if (exampleModel.caret().isAreaSelected()) this.model.caret().clearSelection(); });
+        model.addChangeEventListener(change -> { if (change.selectionChanged() && model.caret().isAreaSelected()) exampleModel.caret().clearSelection(); });
+        exampleModel.addChangeEventListener(change -> { if (change.selectionChanged() && exampleModel.caret().isAreaSelected()) model.caret().clearSelection(); });
+    }
+
+    // Input, posted runnables, running actions and scrolling already ask libGDX for a frame; changes made any other way must
+    // too, including syntax check results, which the colour coders are given a callback for
+    private void renderOnChange() {
+        model.addChangeListener(m -> Gdx.graphics.requestRendering());
+        exampleModel.addChangeListener(m -> Gdx.graphics.requestRendering());
+        game.registerChangeListener(g -> Gdx.graphics.requestRendering());
     }
 
     private ButtonBar createButtonBar() {
@@ -155,11 +166,11 @@ public class CodingScreen extends ScreenAdapter {
         buttonBar.addSpacer(16);
         buttonBar.addImageButton(" Exit", "exit-button", () -> new ExitCommand(game, gameStore, this::saveGameChoice, this::getGameName, this::errorReporter, this::exitToMainMenu));
 
-        executorService = Executors.newSingleThreadScheduledExecutor();
-        gameSavingProcess = executorService.scheduleAtFixedRate(() -> {
+        gameSavingProcess = TaskScheduler.INSTANCE.scheduleAtFixedRate(Autosave, () -> {
             buttonBar.refreshEnabledStatuses();
             gameStore.save(game);
-        }, 0, 2, TimeUnit.SECONDS);
+            Gdx.graphics.requestRendering();
+        }, 0, 2000);
 
         return buttonBar;
     }
@@ -277,14 +288,26 @@ public class CodingScreen extends ScreenAdapter {
     }
 
     private void createTextArea(Game game) {
-        model = new TextAreaModel(game.code(), game.language().codeColorCoder(game::runtimeError));
+        model = new TextAreaModel(game.code(), game.language().codeColorCoder(game::runtimeError, Gdx.graphics::requestRendering));
         model.preInsertVetoer(game.language()::vetoPreInsert);
-        model.addChangeListener((m) -> game.code(model.text()));
+        model.addChangeEventListener(change -> { if (change.textChanged()) game.code(model.text()); });
         textArea = new ScrollableTextArea(model, skin, game.commandHistory(), "code");
+        restoreHistory();
+    }
+
+    private void restoreHistory() {
+        FileHandle journalFile = gameStore.journalFile(game);
+        TaskScheduler.INSTANCE.submit(Background, () -> {
+            GameJournal.History history = game.journal().restore(journalFile);
+            Gdx.app.postRunnable(() -> {
+                history.restoreInto(game.commandHistory(), model);
+                buttonBar.refreshEnabledStatuses();
+            });
+        });
     }
 
     private void createExampleArea(Language language) {
-        exampleModel = new TextAreaModel("", language.codeColorCoder(() -> null));
+        exampleModel = new TextAreaModel("", language.codeColorCoder(() -> null, Gdx.graphics::requestRendering));
         exampleArea = new ScrollableTextArea(exampleModel, skin, new CommandHistory(), "example");
     }
 
@@ -302,6 +325,17 @@ public class CodingScreen extends ScreenAdapter {
         return errorLabel;
     }
 
+    @Override
+    public void show() {
+        Gdx.graphics.setContinuousRendering(false);
+        Gdx.graphics.requestRendering();
+    }
+
+    @Override
+    public void hide() {
+        Gdx.graphics.setContinuousRendering(true);
+    }
+
     @Override
     public void render(float delta) {
         Gdx.gl.glClearColor(0, 0, 0, 1);
@@ -345,6 +379,6 @@ public class CodingScreen extends ScreenAdapter {
         resourceTabControl.dispose();
         game.dispose();
         buttonBar.dispose();
-        executorService.shutdown();
+        gameSavingProcess.cancel(false);
     }
 }
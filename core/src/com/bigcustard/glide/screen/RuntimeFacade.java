@@ -1,5 +1,6 @@
 package com.bigcustard.glide.screen;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
 import com.bigcustard.blurp.bootstrap.BlurpConfiguration;
 import com.bigcustard.blurp.bootstrap.BlurpRuntime;
@@ -40,6 +41,7 @@ public class RuntimeFacade {
         updateBlurpConfig(game, onExit);
         updateBlurpExceptionHandler(game);
         startScript(game);
+        Gdx.graphics.setContinuousRendering(true);
         showBlurpScreen();
         runtimeActive = true;
     }
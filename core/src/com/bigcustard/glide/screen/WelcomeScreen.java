@@ -26,15 +26,15 @@ import com.bigcustard.glide.code.language.Language;
 import com.bigcustard.scene2dplus.actions.ChangePaddingAction;
 import com.bigcustard.scene2dplus.button.TextButtonPlus;
 import com.bigcustard.scene2dplus.dialog.ErrorDialog;
+import com.bigcustard.util.TaskScheduler;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import static com.bigcustard.util.TaskScheduler.Priority.Interactive;
+
 public class WelcomeScreen extends ScreenAdapter {
     private static boolean welcomed = false;
     private final Skin skin;
@@ -55,7 +55,6 @@ public class WelcomeScreen extends ScreenAdapter {
     private Image blurpLogo;
     private Image poweredBy;
     private Label version;
-    private ScheduledExecutorService executorService;
     private ImportExport importExport;
 
     WelcomeScreen(GameStore gameStore, Viewport viewport, Consumer<Screen> setScreen, ScreenFactory screenFactory, Skin skin) {
@@ -216,11 +215,10 @@ public class WelcomeScreen extends ScreenAdapter {
                     Actions.delay(0.9f),
                     Actions.scaleTo(1f, 1f, 0.5f, Interpolation.bounceOut)
             ));
-            executorService = Executors.newSingleThreadScheduledExecutor();
-            executorService.schedule(
+            TaskScheduler.INSTANCE.schedule(
+                    Interactive,
                     () -> Gdx.audio.newSound(Gdx.files.internal("sound/TireBlow.wav")).play(),
-                    980,
-                    TimeUnit.MILLISECONDS);
+                    980);
         }
         welcomed = true;
     }
@@ -301,6 +299,5 @@ public class WelcomeScreen extends ScreenAdapter {
         newGameButton.clearListeners();
         quitButton.clearListeners();
         samplesButton.clearListeners();
-        executorService.shutdown();
     }
 }
@@ -9,12 +9,13 @@ import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Disposable;
 import com.bigcustard.scene2dplus.Spacer;
 import com.bigcustard.scene2dplus.command.Command;
+import com.bigcustard.util.TaskScheduler;
 
-import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 
 import static com.badlogic.gdx.scenes.scene2d.Touchable.disabled;
 import static com.badlogic.gdx.scenes.scene2d.Touchable.enabled;
+import static com.bigcustard.util.TaskScheduler.Priority.Background;
 import static com.bigcustard.util.Util.tryGet;
 
 public class ButtonBar extends HorizontalGroup implements Disposable {
@@ -73,7 +74,7 @@ public class ButtonBar extends HorizontalGroup implements Disposable {
 
     @Override
     public void dispose() {
-        Executors.newSingleThreadExecutor().submit(() -> getChildren().forEach(Actor::clearListeners));
+        TaskScheduler.INSTANCE.submit(Background, () -> getChildren().forEach(Actor::clearListeners));
     }
 
     private static class RefreshEnabledStatusEvent extends Event {
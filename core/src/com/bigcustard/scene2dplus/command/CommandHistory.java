@@ -1,42 +1,100 @@
 package com.bigcustard.scene2dplus.command;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongSupplier;
 
+// Ring buffer of executed commands. Once it holds more than the maximum number of commands or the estimated bytes
+// they retain pass the limit, the oldest commands are dropped and can no longer be undone.
+// A command executed soon after the last one may be merged into it, so a burst of typing is undone in one step.
 public class CommandHistory {
-    private List<Command> executedCommands = new LinkedList<Command>();
-    private int lastCommandIndex = -1;
+    private static final int DEFAULT_MAX_COMMANDS = 1000;
+    private static final long DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+    private static final long UNSIZED_COMMAND_BYTES = 64;
+    private static final long MERGE_WINDOW_MILLIS = 1000;
+
+    private final int maxCommands;
+    private final Command[] commands;
+    private final long[] commandBytes;
+    private final long maxBytes;
+    private final LongSupplier clock;
+    private final List<Listener> listeners = new ArrayList<>();
+    private int oldest;
+    private int size;
+    private int executed;
+    private long retainedBytes;
+    private long lastExecutedAt;
+    private boolean lastCommandMergeable;
+
+    public CommandHistory() {
+        this(DEFAULT_MAX_COMMANDS, DEFAULT_MAX_BYTES);
+    }
+
+    public CommandHistory(int maxCommands, long maxBytes) {
+        this(maxCommands, maxBytes, System::currentTimeMillis);
+    }
+
+    public CommandHistory(int maxCommands, long maxBytes, LongSupplier clock) {
+        this.maxCommands = maxCommands;
+        this.commands = new Command[maxCommands + 1];
+        this.commandBytes = new long[maxCommands + 1];
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
 
     public boolean canRedo() {
-        return lastCommandIndex < executedCommands.size() - 1;
+        return executed < size;
     }
 
     public void redo() {
         if (canRedo()) {
-            Command nextCommand = executedCommands.get(lastCommandIndex + 1);
-            lastCommandIndex++;
+            Command nextCommand = commands[slot(executed)];
+            executed++;
+            lastCommandMergeable = false;
             nextCommand.execute();
+            listeners.forEach(Listener::redone);
         }
     }
 
     public boolean canUndo() {
-        return lastCommandIndex >= 0;
+        return executed > 0;
     }
 
     public void undo() {
         if (canUndo()) {
-            Command lastCommand = executedCommands.get(lastCommandIndex);
-            lastCommandIndex--;
-            lastCommand.undo();
+            executed--;
+            lastCommandMergeable = false;
+            commands[slot(executed)].undo();
+            listeners.forEach(Listener::undone);
         }
     }
 
     public boolean execute(Command command) {
         if (command != null) {
             clearRedoChain();
-            executedCommands.add(command);
-            lastCommandIndex++;
+            Command lastCommand = size > 0 ? commands[slot(size - 1)] : null;
+            commands[slot(size)] = command;
+            size++;
+            executed++;
             command.execute();
+            long now = clock.getAsLong();
+            boolean merged = mergeWithLastCommand(lastCommand, command, now);
+            if (merged) {
+                size--;
+                executed--;
+                release(slot(size));
+            }
+            if (size > maxCommands) removeOldest();
+            lastExecutedAt = now;
+            lastCommandMergeable = true;
+            int slot = slot(size - 1);
+            retainedBytes -= commandBytes[slot];
+            commandBytes[slot] = estimatedBytes(commands[slot]);
+            retainedBytes += commandBytes[slot];
+            while (retainedBytes > maxBytes && size > 1) {
+                removeOldest();
+            }
+            listeners.forEach(listener -> listener.executed(command, merged));
             return true;
         }
         return false;
@@ -61,7 +119,84 @@ public class CommandHistory {
         });
     }
 
+    public void clear() {
+        while (size > 0) {
+            size--;
+            release(slot(size));
+        }
+        oldest = 0;
+        executed = 0;
+        lastCommandMergeable = false;
+    }
+
+    public void watch(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Puts commands kept from an earlier session beneath the ones executed since. Commands the earlier session had
+    // undone are only kept while nothing has been executed since, as they could no longer be redone after it.
+    public void restore(List<Command> restored, int restoredExecuted) {
+        int available = size == 0 ? restored.size() : restoredExecuted;
+        int count = Math.min(available, maxCommands - size);
+        int skipped = available - count;
+        oldest = (oldest - count + commands.length) % commands.length;
+        for (int i = 0; i < count; i++) {
+            int slot = slot(i);
+            commands[slot] = restored.get(skipped + i);
+            commandBytes[slot] = estimatedBytes(commands[slot]);
+            retainedBytes += commandBytes[slot];
+        }
+        executed += size == 0 ? Math.max(0, restoredExecuted - skipped) : count;
+        size += count;
+        while (retainedBytes > maxBytes && size > 1 && executed > 0) {
+            removeOldest();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long retainedBytes() {
+        return retainedBytes;
+    }
+
+    private boolean mergeWithLastCommand(Command lastCommand, Command command, long now) {
+        if (!lastCommandMergeable || now - lastExecutedAt > MERGE_WINDOW_MILLIS) return false;
+        return lastCommand instanceof MergeableCommand && ((MergeableCommand) lastCommand).mergeWith(command);
+    }
+
     private void clearRedoChain() {
-        executedCommands = lastCommandIndex == -1 ? new LinkedList<>() : executedCommands.subList(0, lastCommandIndex + 1);
+        while (size > executed) {
+            size--;
+            release(slot(size));
+        }
+    }
+
+    private void removeOldest() {
+        release(oldest);
+        oldest = (oldest + 1) % commands.length;
+        size--;
+        executed--;
+    }
+
+    private void release(int slot) {
+        retainedBytes -= commandBytes[slot];
+        commands[slot] = null;
+        commandBytes[slot] = 0;
+    }
+
+    private int slot(int index) {
+        return (oldest + index) % commands.length;
+    }
+
+    private static long estimatedBytes(Command command) {
+        return command instanceof SizedCommand ? ((SizedCommand) command).estimatedBytes() : UNSIZED_COMMAND_BYTES;
+    }
+
+    public interface Listener {
+        void executed(Command command, boolean merged);
+        void undone();
+        void redone();
     }
 }
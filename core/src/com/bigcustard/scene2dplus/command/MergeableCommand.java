@@ -0,0 +1,6 @@
+package com.bigcustard.scene2dplus.command;
+
+public interface MergeableCommand extends Command {
+    // Called with a command that has just executed; returns true if this command has taken over its changes
+    boolean mergeWith(Command next);
+}
@@ -0,0 +1,5 @@
+package com.bigcustard.scene2dplus.command;
+
+public interface SizedCommand extends Command {
+    long estimatedBytes();
+}
@@ -2,17 +2,17 @@ package com.bigcustard.scene2dplus.resource;
 
 import com.badlogic.gdx.utils.Disposable;
 import com.bigcustard.scene2dplus.command.CommandHistory;
+import com.bigcustard.util.TaskScheduler;
 import com.bigcustard.util.WatchableList;
 
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Stream;
 
+import static com.bigcustard.util.TaskScheduler.Priority.Background;
+
 public class ResourceSet<TModel> implements Disposable {
     private final CommandHistory commandHistory;
     private WatchableList<Resource<TModel>> resources;
-    private static ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
 
     public ResourceSet(List<Resource<TModel>> resources, CommandHistory commandHistory) {
         this.commandHistory = commandHistory;
@@ -43,7 +43,7 @@ public class ResourceSet<TModel> implements Disposable {
     }
 
     private void unwatchRemoveButton(Resource<TModel> resource) {
-        executor.submit(() -> resource.controller().unwatchRemoveButton());
+        TaskScheduler.INSTANCE.submit(Background, () -> resource.controller().unwatchRemoveButton());
     }
 
     private void executeRemoveCommand(Resource<TModel> resource) {
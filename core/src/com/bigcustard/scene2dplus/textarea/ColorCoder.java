@@ -1,10 +1,13 @@
 package com.bigcustard.scene2dplus.textarea;
 
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.IntMap;
 
-import java.util.Map;
+import java.util.List;
 
 public interface ColorCoder {
 	String encode(String text);
-    Map<Integer, Color> colorLines(String text);
+	String encode(String text, long version);
+	List<String> encodeLines(String text, long version);
+    IntMap<Color> colorLines(String text, long version);
 }
@@ -0,0 +1,54 @@
+package com.bigcustard.scene2dplus.textarea;
+
+import com.badlogic.gdx.utils.IntArray;
+
+// The length of every line, updated from just the rows an edit touches, so the longest line is known without measuring
+// the whole text. Only shortening the last of the longest lines needs a scan, and that is of the lengths, not the text.
+class LineLengths {
+    private final IntArray lengths = new IntArray();
+    private int max;
+    private int linesAtMax;
+
+    void replace(int fromRow, int removedRows, TextBuffer buffer, int insertedRows) {
+        for (int row = fromRow; row < fromRow + removedRows; row++) {
+            if (lengths.get(row) == max) linesAtMax--;
+        }
+        int shift = insertedRows - removedRows;
+        int[] items = lengths.ensureCapacity(Math.max(0, shift));
+        if (shift != 0) {
+            System.arraycopy(items, fromRow + removedRows, items, fromRow + insertedRows, lengths.size - fromRow - removedRows);
+            lengths.size += shift;
+        }
+        for (int row = fromRow; row < fromRow + insertedRows; row++) {
+            items[row] = length(buffer, row);
+            count(items[row]);
+        }
+        if (linesAtMax == 0) measureMax();
+    }
+
+    int max() {
+        return max;
+    }
+
+    private void count(int length) {
+        if (length > max) {
+            max = length;
+            linesAtMax = 1;
+        } else if (length == max) {
+            linesAtMax++;
+        }
+    }
+
+    private void measureMax() {
+        max = 0;
+        linesAtMax = 0;
+        for (int row = 0; row < lengths.size; row++) {
+            count(lengths.get(row));
+        }
+    }
+
+    private static int length(TextBuffer buffer, int row) {
+        int end = row + 1 < buffer.lineCount() ? buffer.lineStart(row + 1) - 1 : buffer.length();
+        return end - buffer.lineStart(row);
+    }
+}
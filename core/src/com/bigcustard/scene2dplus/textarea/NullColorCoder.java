@@ -1,18 +1,37 @@
 package com.bigcustard.scene2dplus.textarea;
 
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.IntMap;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
 
 public class NullColorCoder implements ColorCoder {
+    private List<String> lines;
+    private long linesVersion = -1;
+    private final IntMap<Color> noColors = new IntMap<>();
+
     @Override
     public String encode(String text) {
         return text;
     }
 
     @Override
-    public Map<Integer, Color> colorLines(String text) {
-        return new HashMap<>();
+    public String encode(String text, long version) {
+        return text;
+    }
+
+    @Override
+    public List<String> encodeLines(String text, long version) {
+        if (lines == null || linesVersion != version) {
+            lines = Arrays.asList(text.split("\n", -1));
+            linesVersion = version;
+        }
+        return lines;
+    }
+
+    @Override
+    public IntMap<Color> colorLines(String text, long version) {
+        return noColors;
     }
 }
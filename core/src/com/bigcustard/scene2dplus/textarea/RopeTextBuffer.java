@@ -0,0 +1,233 @@
+package com.bigcustard.scene2dplus.textarea;
+
+// Height balanced rope, so inserts and deletes split and rejoin O(log n) nodes rather than copying the whole text.
+// Each node also counts its newlines, which keeps row <-> index conversion O(log n) without a separate line table.
+public class RopeTextBuffer implements TextBuffer {
+    private static final int MAX_LEAF_LENGTH = 512;
+    private Node root;
+
+    public RopeTextBuffer(CharSequence text) {
+        root = build(text, 0, text.length());
+    }
+
+    public RopeTextBuffer() {
+        this("");
+    }
+
+    @Override
+    public int length() {
+        return length(root);
+    }
+
+    @Override
+    public char charAt(int index) {
+        checkRange(index, index + 1);
+        Node node = root;
+        while (node.leaf == null) {
+            if (index < node.left.length) {
+                node = node.left;
+            } else {
+                index -= node.left.length;
+                node = node.right;
+            }
+        }
+        return node.leaf.charAt(index);
+    }
+
+    @Override
+    public void insert(int index, CharSequence characters) {
+        checkRange(index, index);
+        if (characters.length() == 0) return;
+        Node[] parts = split(root, index);
+        root = join(join(parts[0], build(characters, 0, characters.length())), parts[1]);
+    }
+
+    @Override
+    public void delete(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        Node[] tail = split(root, toIndex);
+        Node[] head = split(tail[0], fromIndex);
+        root = join(head[0], tail[1]);
+    }
+
+    @Override
+    public String substring(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        StringBuilder builder = new StringBuilder(toIndex - fromIndex);
+        append(root, fromIndex, toIndex, builder);
+        return builder.toString();
+    }
+
+    @Override
+    public int lineCount() {
+        return lines(root) + 1;
+    }
+
+    @Override
+    public int lineStart(int row) {
+        if (row < 0 || row > lines(root)) {
+            throw new IndexOutOfBoundsException("Row " + row + " outside text of " + lineCount() + " lines");
+        }
+        if (row == 0) return 0;
+        Node node = root;
+        int index = 0;
+        while (node.leaf == null) {
+            if (row <= node.left.lines) {
+                node = node.left;
+            } else {
+                row -= node.left.lines;
+                index += node.left.length;
+                node = node.right;
+            }
+        }
+        int newlineIndex = -1;
+        for (int i = 0; i < row; i++) {
+            newlineIndex = node.leaf.indexOf('\n', newlineIndex + 1);
+        }
+        return index + newlineIndex + 1;
+    }
+
+    @Override
+    public int lineOf(int index) {
+        checkRange(index, index);
+        int row = 0;
+        Node node = root;
+        while (node != null && node.leaf == null) {
+            if (index < node.left.length) {
+                node = node.left;
+            } else {
+                row += node.left.lines;
+                index -= node.left.length;
+                node = node.right;
+            }
+        }
+        return node == null ? row : row + countNewlines(node.leaf, index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return substring(0, length());
+    }
+
+    private void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > length() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex + ") outside text of length " + length());
+        }
+    }
+
+    private static void append(Node node, int fromIndex, int toIndex, StringBuilder builder) {
+        if (node == null || fromIndex >= toIndex) return;
+        if (node.leaf != null) {
+            builder.append(node.leaf, fromIndex, toIndex);
+        } else {
+            int leftLength = node.left.length;
+            if (fromIndex < leftLength) {
+                append(node.left, fromIndex, Math.min(toIndex, leftLength), builder);
+            }
+            if (toIndex > leftLength) {
+                append(node.right, Math.max(0, fromIndex - leftLength), toIndex - leftLength, builder);
+            }
+        }
+    }
+
+    private static Node build(CharSequence text, int fromIndex, int toIndex) {
+        int length = toIndex - fromIndex;
+        if (length == 0) return null;
+        if (length <= MAX_LEAF_LENGTH) return new Node(text.subSequence(fromIndex, toIndex).toString());
+        int middle = fromIndex + length / 2;
+        return new Node(build(text, fromIndex, middle), build(text, middle, toIndex));
+    }
+
+    private static Node[] split(Node node, int index) {
+        if (node == null || index <= 0) return new Node[] {null, node};
+        if (index >= node.length) return new Node[] {node, null};
+        if (node.leaf != null) {
+            return new Node[] {new Node(node.leaf.substring(0, index)), new Node(node.leaf.substring(index))};
+        }
+        if (index < node.left.length) {
+            Node[] parts = split(node.left, index);
+            return new Node[] {parts[0], join(parts[1], node.right)};
+        }
+        Node[] parts = split(node.right, index - node.left.length);
+        return new Node[] {join(node.left, parts[0]), parts[1]};
+    }
+
+    private static Node join(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.leaf != null && right.leaf != null && left.length + right.length <= MAX_LEAF_LENGTH) {
+            return new Node(left.leaf + right.leaf);
+        }
+        int heightDifference = left.height - right.height;
+        if (heightDifference > 1) {
+            return balance(left.left, join(left.right, right));
+        } else if (heightDifference < -1) {
+            return balance(join(left, right.left), right.right);
+        }
+        return new Node(left, right);
+    }
+
+    private static Node balance(Node left, Node right) {
+        if (left.height > right.height + 1) {
+            if (left.left.height >= left.right.height) {
+                return new Node(left.left, new Node(left.right, right));
+            }
+            return new Node(new Node(left.left, left.right.left), new Node(left.right.right, right));
+        } else if (right.height > left.height + 1) {
+            if (right.right.height >= right.left.height) {
+                return new Node(new Node(left, right.left), right.right);
+            }
+            return new Node(new Node(left, right.left.left), new Node(right.left.right, right.right));
+        }
+        return new Node(left, right);
+    }
+
+    private static int length(Node node) {
+        return node == null ? 0 : node.length;
+    }
+
+    private static int lines(Node node) {
+        return node == null ? 0 : node.lines;
+    }
+
+    private static int countNewlines(String text, int toIndex) {
+        int count = 0;
+        for (int i = 0; i < toIndex; i++) {
+            if (text.charAt(i) == '\n') count++;
+        }
+        return count;
+    }
+
+    private static class Node {
+        private final String leaf;
+        private final Node left;
+        private final Node right;
+        private final int length;
+        private final int lines;
+        private final int height;
+
+        private Node(String leaf) {
+            this.leaf = leaf;
+            this.left = null;
+            this.right = null;
+            this.length = leaf.length();
+            this.lines = countNewlines(leaf, leaf.length());
+            this.height = 0;
+        }
+
+        private Node(Node left, Node right) {
+            this.leaf = null;
+            this.left = left;
+            this.right = right;
+            this.length = left.length + right.length;
+            this.lines = left.lines + right.lines;
+            this.height = 1 + Math.max(left.height, right.height);
+        }
+    }
+}
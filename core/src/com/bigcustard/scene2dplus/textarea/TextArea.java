@@ -2,27 +2,38 @@ package com.bigcustard.scene2dplus.textarea;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.graphics.g2d.GlyphLayout;
-import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.TextField;
+import com.badlogic.gdx.scenes.scene2d.ui.Widget;
+import com.badlogic.gdx.scenes.scene2d.utils.Cullable;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
-import com.badlogic.gdx.scenes.scene2d.utils.Layout;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.StringBuilder;
 import com.bigcustard.scene2dplus.XY;
 import org.apache.commons.lang3.tuple.Pair;
 
-import java.util.Map;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 
-public class TextArea extends Actor {
+public class TextArea extends Widget implements Cullable {
     private static final int TOP_MARGIN = 29;
     private static final int LEFT_MARGIN = 8;
     private static final int COLUMN_WIDTH = 9;
     private final TextureRegionDrawable white;
     private TextAreaModel model;
     private TextField.TextFieldStyle style;
+    private Rectangle cullingArea;
+    private final List<BitmapFontCache> lineCaches = new ArrayList<>();
+    private final IntArray cachedRows = new IntArray();
+    private final List<String> cachedLines = new ArrayList<>();
+    private final ObjectMap<Color, Drawable> tints = new ObjectMap<>();
+    private float measuredWidth;
+    private float measuredHeight;
 
     public TextArea(TextAreaModel model, Skin skin, String style) {
         this.model = model;
@@ -33,10 +44,28 @@ public class TextArea extends Actor {
         }
         this.style.font.setFixedWidthGlyphs(sb.toString());
         white = (TextureRegionDrawable) skin.getDrawable("white");
+        measure();
+    }
+
+    @Override
+    public void act(float delta) {
+        super.act(delta);
+        measure();
+    }
+
+    @Override
+    public float getPrefWidth() {
+        return measuredWidth;
+    }
+
+    @Override
+    public float getPrefHeight() {
+        return measuredHeight;
     }
 
     @Override
     public void draw(Batch batch, float parentAlpha) {
+        validate();
         drawBackground(batch);
         drawCurrentLineBackground(batch);
         drawOtherLineBackgrounds(batch);
@@ -46,9 +75,7 @@ public class TextArea extends Actor {
     }
 
     public XY caretLocationToPosition(XY caret) {
-        float x = LEFT_MARGIN + getX() + caret.x * getColumnWidth();
-        float y = -TOP_MARGIN + getHeight() + getY() - caret.y * getRowHeight();
-        return new XY((int) x, (int) y);
+        return new XY(columnX(caret.x), rowY(caret.y));
     }
 
     public XY worldPositionToCaretLocation(XY worldXY) {
@@ -57,6 +84,12 @@ public class TextArea extends Actor {
         return new XY((int) caretX, (int) caretY);
     }
 
+    // The scroll pane sets the part of the text area that is visible, so only those rows need drawing
+    @Override
+    public void setCullingArea(Rectangle cullingArea) {
+        this.cullingArea = cullingArea;
+    }
+
     float getRowHeight() {
         return style.font.getLineHeight();
     }
@@ -65,58 +98,121 @@ public class TextArea extends Actor {
         return COLUMN_WIDTH;
     }
 
+    // Drawing works in plain coordinates so that a steady frame allocates nothing
+    private int columnX(int column) {
+        return (int) (LEFT_MARGIN + getX() + column * getColumnWidth());
+    }
+
+    private int rowY(int row) {
+        return (int) (-TOP_MARGIN + getHeight() + getY() - row * getRowHeight());
+    }
+
+    private Drawable tinted(Color color) {
+        Drawable background = tints.get(color);
+        if (background == null) {
+            background = white.tint(color);
+            tints.put(color, background);
+        }
+        return background;
+    }
+
+    // The scroll pane only needs laying out again when the number of lines or the longest line changes
+    private void measure() {
+        float width = LEFT_MARGIN + model.maxLineLength() * getColumnWidth();
+        float height = TOP_MARGIN + model.lineCount() * getRowHeight();
+        if (width != measuredWidth || height != measuredHeight) {
+            measuredWidth = width;
+            measuredHeight = height;
+            invalidateHierarchy();
+        }
+    }
+
     private void drawBackground(Batch batch) {
         style.background.draw(batch, getX(), getY(), getWidth(), getHeight());
     }
 
     private void drawCurrentLineBackground(Batch batch) {
         if (model.caret().selection() == null) {
-            XY topLeftCurrent = caretLocationToPosition(new XY(0, model.caret().location().y));
-            style.focusedBackground.draw(batch, 0, topLeftCurrent.y, getWidth(), getRowHeight());
+            style.focusedBackground.draw(batch, 0, rowY(model.caret().location().y), getWidth(), getRowHeight());
         }
     }
 
     private void drawOtherLineBackgrounds(Batch batch) {
-        Map<Integer, Color> coloredLines = model.getColoredLines();
-        for (Map.Entry<Integer, Color> colorLine : coloredLines.entrySet()) {
-            Drawable background = white.tint(colorLine.getValue());
-            XY topLeftCurrent = caretLocationToPosition(new XY(0, colorLine.getKey()));
-            background.draw(batch, 0, topLeftCurrent.y, getWidth(), getRowHeight());
+        for (IntMap.Entry<Color> colorLine : model.getColoredLines().entries()) {
+            tinted(colorLine.value).draw(batch, 0, rowY(colorLine.key), getWidth(), getRowHeight());
         }
     }
 
     private void drawSelectionBackground(Batch batch) {
         Pair<XY, XY> selection = model.caret().selection();
         if (selection != null) {
-            XY topLeftSelection = caretLocationToPosition(selection.getLeft());
-            XY bottomRightSelection = caretLocationToPosition(selection.getRight());
-            if (!Objects.equals(selection.getLeft().y, selection.getRight().y)) {
-                style.selection.draw(batch, topLeftSelection.x, topLeftSelection.y, getWidth() - topLeftSelection.x, getRowHeight());
-                style.selection.draw(batch, 0, bottomRightSelection.y + getRowHeight(), getWidth(), topLeftSelection.y - bottomRightSelection.y - getRowHeight());
-                style.selection.draw(batch, 0, bottomRightSelection.y, bottomRightSelection.x, getRowHeight());
+            int left = columnX(selection.getLeft().x);
+            int top = rowY(selection.getLeft().y);
+            int right = columnX(selection.getRight().x);
+            int bottom = rowY(selection.getRight().y);
+            if (selection.getLeft().y != selection.getRight().y) {
+                style.selection.draw(batch, left, top, getWidth() - left, getRowHeight());
+                style.selection.draw(batch, 0, bottom + getRowHeight(), getWidth(), top - bottom - getRowHeight());
+                style.selection.draw(batch, 0, bottom, right, getRowHeight());
             } else {
-                style.selection.draw(batch, topLeftSelection.x, topLeftSelection.y, bottomRightSelection.x - topLeftSelection.x, getRowHeight());
+                style.selection.draw(batch, left, top, right - left, getRowHeight());
             }
         }
     }
 
     private void drawText(Batch batch) {
+        List<String> lines = model.coloredTextLines();
+        int row = firstVisibleRow();
         try {
             style.font.getData().markupEnabled = true;
-            XY textStart = caretLocationToPosition(new XY(0, 0));
-            GlyphLayout textBounds = style.font.draw(batch, model.coloredText(), textStart.x, textStart.y + TOP_MARGIN - 11);
-            setHeight(Math.max(TOP_MARGIN + textBounds.height, getParent().getHeight()));
-            setWidth(Math.max(LEFT_MARGIN + textBounds.width, getParent().getWidth()));
-            ((Layout) getParent()).invalidate();
+            int lastRow = lastVisibleRow(lines.size());
+            ensureLineCaches(lastRow - row + 1);
+            for (; row <= lastRow; row++) {
+                lineCache(row, lines.get(row), columnX(0), rowY(row) + TOP_MARGIN - 11).draw(batch);
+            }
         } catch (Exception e) {
-            System.out.println("Failed to draw text: " + model.coloredText());
+            System.out.println("Failed to draw text at row " + row + " of " + lines.size());
             throw e;
         }
     }
 
+    // There is a cache for each visible row, shared round the rows by row number, so a row scrolling into view takes over
+    // the cache of the one that scrolled out. Glyph geometry is only rebuilt when the row or its markup changes;
+    // otherwise the cached vertices are just moved. Geometry is built at the origin because setText leaves the cache's
+    // position at zero, and setPosition moves the vertices relative to that position.
+    private BitmapFontCache lineCache(int row, String line, float x, float y) {
+        int slot = row % lineCaches.size();
+        BitmapFontCache cache = lineCaches.get(slot);
+        if (cachedRows.get(slot) != row || !line.equals(cachedLines.get(slot))) {
+            cache.setText(line, 0, 0);
+            cachedRows.set(slot, row);
+            cachedLines.set(slot, line);
+        }
+        cache.setPosition(x, y);
+        return cache;
+    }
+
+    private void ensureLineCaches(int visibleRows) {
+        while (lineCaches.size() < visibleRows) {
+            lineCaches.add(style.font.newFontCache());
+            cachedRows.add(-1);
+            cachedLines.add(null);
+        }
+    }
+
+    private int firstVisibleRow() {
+        if (cullingArea == null) return 0;
+        return Math.max(0, (int) ((getHeight() - TOP_MARGIN - cullingArea.y - cullingArea.height) / getRowHeight()) - 1);
+    }
+
+    private int lastVisibleRow(int rows) {
+        if (cullingArea == null) return rows - 1;
+        return Math.min(rows - 1, (int) ((getHeight() - TOP_MARGIN - cullingArea.y) / getRowHeight()) + 2);
+    }
+
     private void drawCaret(Batch batch) {
         Drawable caretImage = style.cursor;
-        XY caretPosition = caretLocationToPosition(model.caret().location());
-        caretImage.draw(batch, caretPosition.x - 2, caretPosition.y, caretImage.getMinWidth(), getRowHeight());
+        XY caret = model.caret().location();
+        caretImage.draw(batch, columnX(caret.x) - 2, rowY(caret.y), caretImage.getMinWidth(), getRowHeight());
     }
 }
\ No newline at end of file
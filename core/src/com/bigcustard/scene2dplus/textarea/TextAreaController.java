@@ -25,6 +25,7 @@ public class TextAreaController extends ClickListener {
         this.model = model;
         this.view = view;
         this.commandHistory = commandHistory;
+        model.addReplacedListener(m -> commandHistory.clear());
     }
 
     @Override
@@ -2,28 +2,45 @@ package com.bigcustard.scene2dplus.textarea;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntMap;
 import com.bigcustard.scene2dplus.XY;
 import com.bigcustard.util.Watchable;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
 
 public class TextAreaModel implements Disposable {
 	private static final String END = "$END$";
+	private static final AtomicLong versions = new AtomicLong();
+	private TextBuffer buffer;
 	private String text;
+	private long version = versions.incrementAndGet();
 	private Caret caret;
 	private ColorCoder colorCoder;
 	private Watchable<TextAreaModel> changeWatchable = new Watchable<>();
+	private Watchable<Change> changeEventWatchable = new Watchable<>();
+	private Watchable<TextAreaModel> replacedWatchable = new Watchable<>();
+	private Change pendingChange;
 	private BiFunction<String, TextAreaModel, String> preInsertVetoer;
+	private List<Edit> recordedEdits;
+	private final LineLengths lineLengths = new LineLengths();
 
 	public TextAreaModel(String text, ColorCoder colorCoder) {
-		this.text = text;
+		this(new RopeTextBuffer(text), colorCoder);
+    }
+
+	public TextAreaModel(TextBuffer buffer, ColorCoder colorCoder) {
+		this.buffer = buffer;
 		this.colorCoder = colorCoder;
+		lineLengths.replace(0, 0, buffer, buffer.lineCount());
+		changeWatchable.watch(model -> broadcastChangeEvent());
 		caret = new Caret();
         caret.moveToBottom();
     }
@@ -36,6 +53,20 @@ public class TextAreaModel implements Disposable {
 		changeWatchable.watch(listener);
 	}
 
+	public void addChangeEventListener(Consumer<Change> listener) {
+		changeEventWatchable.watch(listener);
+	}
+
+	// Listeners hear when the text is replaced outside a recorded command, so any edits recorded earlier no longer apply
+	public void addReplacedListener(Consumer<TextAreaModel> listener) {
+		replacedWatchable.watch(listener);
+	}
+
+	// Listeners hear about the changes made by the runnable once, when it has finished
+	public void batch(Runnable change) {
+		changeWatchable.batch(change);
+	}
+
 	public void preInsertVetoer(BiFunction<String, TextAreaModel, String> preInsertVetoer) {
 		this.preInsertVetoer = preInsertVetoer;
 	}
@@ -45,37 +76,105 @@ public class TextAreaModel implements Disposable {
 	}
 
     public State state() {
-        return new State();
+        return new State(caret().location(), caret().selection());
+    }
+
+    public State state(XY caretLocation, Pair<XY, XY> caretSelection) {
+        return new State(caretLocation, caretSelection);
     }
 
     public void setState(State state) {
-        text = state.text;
-        caret().setLocation(state.caretLocation);
-        if (state.caretSelection != null) {
-            caret().setSelection(state.caretSelection.getLeft(), state.caretSelection.getRight());
+        changeWatchable.beginBatch();
+        try {
+            caret().setLocation(state.caretLocation);
+            if (state.caretSelection != null) {
+                caret().setSelection(state.caretSelection.getLeft(), state.caretSelection.getRight());
+            }
+            changeWatchable.broadcast(this);
+        } finally {
+            changeWatchable.endBatch();
         }
-        changeWatchable.broadcast(this);
     }
 
+	public List<Edit> recordEdits(Runnable change) {
+		List<Edit> edits = new ArrayList<>();
+		recordedEdits = edits;
+		try {
+			change.run();
+		} finally {
+			recordedEdits = null;
+		}
+		return edits;
+	}
+
+	public void undo(List<Edit> edits, State state) {
+		for (int i = edits.size() - 1; i >= 0; i--) {
+			Edit edit = edits.get(i);
+			edit(edit.index, edit.index + edit.inserted.length(), edit.removed);
+		}
+		setState(state);
+	}
+
+	public void redo(List<Edit> edits, State state) {
+		for (Edit edit : edits) {
+			edit(edit.index, edit.index + edit.removed.length(), edit.inserted);
+		}
+		setState(state);
+	}
+
 	public void clear() {
 		setText("");
 	}
 
+    public long version() {
+		return version;
+	}
+
     public String text() {
+		if (text == null) {
+			text = buffer.toString();
+		}
 		return text;
 	}
 
 	public void setText(String text) {
-		this.text = text;
+		boolean recorded = recordedEdits != null;
+		replaceText(text);
 		changeWatchable.broadcast(this);
+		if (!recorded) replacedWatchable.broadcast(this);
+	}
+
+	private void replaceText(String text) {
+		if (recordedEdits != null) {
+			recordedEdits.add(new Edit(0, buffer.toString(), text));
+		}
+		noteChange(Change.edit(0, buffer.length(), text.length()));
+		int removedRows = buffer.lineCount();
+		buffer.delete(0, buffer.length());
+		buffer.insert(0, text);
+		lineLengths.replace(0, removedRows, buffer, buffer.lineCount());
+		this.text = text;
+		version = versions.incrementAndGet();
 	}
 
 	public String coloredText() {
-		return colorCoder.encode(text);
+		return colorCoder.encode(text(), version);
+	}
+
+	public List<String> coloredTextLines() {
+		return colorCoder.encodeLines(text(), version);
+	}
+
+	public int lineCount() {
+		return buffer.lineCount();
 	}
 
-    public Map<Integer, Color> getColoredLines() {
-        return colorCoder.colorLines(text);
+	public int maxLineLength() {
+		return lineLengths.max();
+	}
+
+    public IntMap<Color> getColoredLines() {
+        return colorCoder.colorLines(text(), version);
     }
 
 	public String insert(String characters) {
@@ -84,42 +183,71 @@ public class TextAreaModel implements Disposable {
 		int indexfOfEnd = characters.contains(END) ? characters.indexOf(END) : characters.length();
 		characters = characters.replace(END, "");
 
-		int fromIndex, toIndex;
-        if (caret().isAreaSelected()) {
-            fromIndex = getIndex(caret().selection().getLeft());
-            toIndex = getIndex(caret().selection().getRight());
-            caret().clearSelection();
-        } else {
-            fromIndex = getIndex(caret.location());
-            toIndex = fromIndex;
-        }
-        String deleted = text.substring(fromIndex, toIndex);
-        setText(text.substring(0, fromIndex) + characters + text.substring(toIndex, text.length()));
-        positionCaret(fromIndex + indexfOfEnd);
-        return deleted;
+		changeWatchable.beginBatch();
+		try {
+			int fromIndex, toIndex;
+			if (caret().isAreaSelected()) {
+				fromIndex = getIndex(caret().selection().getLeft());
+				toIndex = getIndex(caret().selection().getRight());
+				caret().clearSelection();
+			} else {
+				fromIndex = getIndex(caret.location());
+				toIndex = fromIndex;
+			}
+			String deleted = buffer.substring(fromIndex, toIndex);
+			replace(fromIndex, toIndex, characters);
+			positionCaret(fromIndex + indexfOfEnd);
+			return deleted;
+		} finally {
+			changeWatchable.endBatch();
+		}
 	}
 
 	public String deleteCharacter() {
-        int fromIndex, toIndex;
-        if (caret().isAreaSelected()) {
-            fromIndex = getIndex(caret().selection().getLeft());
-            toIndex = getIndex(caret().selection().getRight());
-            positionCaret(fromIndex);
-        } else {
-            toIndex = getIndex(caret.location());
-            fromIndex = Math.max(0, toIndex - 1);
-            positionCaret(fromIndex);
-        }
-        String deleted = text.substring(fromIndex, toIndex);
-        setText(text.substring(0, fromIndex) + text.substring(toIndex, text.length()));
-        return deleted;
+		changeWatchable.beginBatch();
+		try {
+			int fromIndex, toIndex;
+			if (caret().isAreaSelected()) {
+				fromIndex = getIndex(caret().selection().getLeft());
+				toIndex = getIndex(caret().selection().getRight());
+				positionCaret(fromIndex);
+			} else {
+				toIndex = getIndex(caret.location());
+				fromIndex = Math.max(0, toIndex - 1);
+				positionCaret(fromIndex);
+			}
+			String deleted = buffer.substring(fromIndex, toIndex);
+			replace(fromIndex, toIndex, "");
+			return deleted;
+		} finally {
+			changeWatchable.endBatch();
+		}
+	}
+
+	private void replace(int fromIndex, int toIndex, String characters) {
+		edit(fromIndex, toIndex, characters);
+		changeWatchable.broadcast(this);
+	}
+
+	private void edit(int fromIndex, int toIndex, String characters) {
+		if (recordedEdits != null) {
+			recordedEdits.add(new Edit(fromIndex, buffer.substring(fromIndex, toIndex), characters));
+		}
+		noteChange(Change.edit(fromIndex, toIndex - fromIndex, characters.length()));
+		int fromRow = buffer.lineOf(fromIndex);
+		int removedRows = buffer.lineOf(toIndex) - fromRow + 1;
+		buffer.delete(fromIndex, toIndex);
+		buffer.insert(fromIndex, characters);
+		lineLengths.replace(fromRow, removedRows, buffer, buffer.lineOf(fromIndex + characters.length()) - fromRow + 1);
+		text = null;
+		version = versions.incrementAndGet();
 	}
 
     public String getSelection() {
         if (caret().isAreaSelected()) {
             int fromIndex = getIndex(caret().selection().getLeft());
             int toIndex = getIndex(caret().selection().getRight());
-            return text.substring(fromIndex, toIndex);
+            return buffer.substring(fromIndex, toIndex);
         }
         return null;
     }
@@ -128,58 +256,57 @@ public class TextAreaModel implements Disposable {
         XY location = caret().location();
         int fromIndex = getIndex(new XY(0, location.y));
         int toIndex = fromIndex + currentLineLength();
-        return text.substring(fromIndex, toIndex);
+        return buffer.substring(fromIndex, toIndex);
     }
 
 	private int currentLineLength() {
-		int startRowIndex = getIndexForRow(caret.y());
-		int endOfRowIndex = text.indexOf('\n', startRowIndex);
-		if (endOfRowIndex == -1) {
-			endOfRowIndex = text.length();
-		}
-		return endOfRowIndex - startRowIndex;
+		int row = caret.y();
+		if (row > numberOfRows()) return 0;
+		int endOfRowIndex = row < numberOfRows() ? buffer.lineStart(row + 1) - 1 : buffer.length();
+		return endOfRowIndex - buffer.lineStart(row);
 	}
 
     private void positionCaret(int textIndex) {
-		int row = 0;
-		int index = 0;
-		while (true) {
-			int newlineIndex = text.indexOf('\n', index);
-			if (newlineIndex == -1 || newlineIndex >= textIndex) {
-				break;
-			}
-			row++;
-			index = newlineIndex + 1;
-		}
-		caret.setLocation(textIndex - index, row);
+		int row = buffer.lineOf(textIndex);
+		caret.setLocation(textIndex - buffer.lineStart(row), row);
 	}
 
 	private int getIndexForRow(int row) {
-		int index = 0;
-		for (int y = 0; y < row; y++) {
-			index = text.indexOf('\n', index);
-			if (index == -1) {
-				text = text.concat("\n");
-				index = text.length() - 1;
-			}
-			index++;
+		return row > numberOfRows() ? buffer.length() : buffer.lineStart(row);
+	}
+
+	private void extendToRow(int row) {
+		int missingRows = row - numberOfRows();
+		if (missingRows > 0) {
+			edit(buffer.length(), buffer.length(), StringUtils.repeat('\n', missingRows));
 		}
-		return index;
 	}
 
     private int getIndex(XY location) {
         int index = getIndexForRow(location.y);
         index += location.x;
-        return Math.min(index, text.length());
+        return Math.min(index, buffer.length());
     }
 
 	private int numberOfRows() {
-		return StringUtils.countMatches(text, "\n");
+		return buffer.lineCount() - 1;
+	}
+
+	private void noteChange(Change change) {
+		pendingChange = pendingChange == null ? change : pendingChange.and(change);
+	}
+
+	private void broadcastChangeEvent() {
+		Change change = pendingChange == null ? Change.CARET : pendingChange;
+		pendingChange = null;
+		changeEventWatchable.broadcast(change);
 	}
 
 	@Override
 	public void dispose() {
 		changeWatchable.dispose();
+		changeEventWatchable.dispose();
+		replacedWatchable.dispose();
 	}
 
 	public class Caret {
@@ -203,7 +330,9 @@ public class TextAreaModel implements Disposable {
         }
 
         public void setLocation(XY caretLocation) {
+			noteChange(Change.CARET);
 			this.location = caretLocation;
+			extendToRow(caretLocation.y);
             changeXIfBeyondEndOfLine();
             clearSelection();
 		}
@@ -213,18 +342,25 @@ public class TextAreaModel implements Disposable {
 		}
 
         public void clearSelection() {
+            if (selection != null) noteChange(Change.SELECTION);
             selection = null;
             changeWatchable.broadcast(TextAreaModel.this);
         }
 
         public void setSelection(XY start, XY end) {
-            setLocation(end);
-            if (start.y < end.y || (Objects.equals(start.y, end.y) && start.x < end.x)) {
-                selection = Pair.of(start, end);
-            } else {
-                selection = Pair.of(end, start);
-			}
-			changeWatchable.broadcast(TextAreaModel.this);
+            changeWatchable.beginBatch();
+            try {
+                setLocation(end);
+                if (start.y < end.y || (Objects.equals(start.y, end.y) && start.x < end.x)) {
+                    selection = Pair.of(start, end);
+                } else {
+                    selection = Pair.of(end, start);
+                }
+                noteChange(Change.SELECTION);
+                changeWatchable.broadcast(TextAreaModel.this);
+            } finally {
+                changeWatchable.endBatch();
+            }
         }
 
 		private int x() {
@@ -293,14 +429,102 @@ public class TextAreaModel implements Disposable {
     }
 
     public class State {
-        private String text;
         private XY caretLocation;
         private Pair<XY, XY> caretSelection;
 
-        private State() {
-            this.text = text();
-            this.caretLocation = caret().location();
-            this.caretSelection = caret().selection();
+        private State(XY caretLocation, Pair<XY, XY> caretSelection) {
+            this.caretLocation = caretLocation;
+            this.caretSelection = caretSelection;
+        }
+
+        public XY caretLocation() {
+            return caretLocation;
+        }
+
+        public Pair<XY, XY> caretSelection() {
+            return caretSelection;
+        }
+    }
+
+    // One replacement of text, kept so commands can undo and redo without a copy of the whole document
+    public static class Edit {
+        private final int index;
+        private final String removed;
+        private final String inserted;
+
+        public Edit(int index, String removed, String inserted) {
+            this.index = index;
+            this.removed = removed;
+            this.inserted = inserted;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public String removed() {
+            return removed;
+        }
+
+        public String inserted() {
+            return inserted;
+        }
+    }
+
+    // What one notification covers. The text between from and the old end was replaced by the text between from and the
+    // new end, or no text changed at all. Changes made in one batch are combined into a single range.
+    public static class Change {
+        private static final Change CARET = new Change(-1, -1, -1, false);
+        private static final Change SELECTION = new Change(-1, -1, -1, true);
+        private final int from;
+        private final int oldEnd;
+        private final int newEnd;
+        private final boolean selectionChanged;
+
+        private Change(int from, int oldEnd, int newEnd, boolean selectionChanged) {
+            this.from = from;
+            this.oldEnd = oldEnd;
+            this.newEnd = newEnd;
+            this.selectionChanged = selectionChanged;
+        }
+
+        private static Change edit(int from, int removedLength, int insertedLength) {
+            return new Change(from, from + removedLength, from + insertedLength, false);
+        }
+
+        public boolean textChanged() {
+            return from >= 0;
+        }
+
+        public boolean selectionChanged() {
+            return selectionChanged;
+        }
+
+        public boolean caretOnly() {
+            return !textChanged() && !selectionChanged;
+        }
+
+        public int from() {
+            return from;
+        }
+
+        public int removedLength() {
+            return oldEnd - from;
+        }
+
+        public int insertedLength() {
+            return newEnd - from;
+        }
+
+        private Change and(Change next) {
+            boolean selection = selectionChanged || next.selectionChanged;
+            if (!next.textChanged()) return new Change(from, oldEnd, newEnd, selection);
+            if (!textChanged()) return new Change(next.from, next.oldEnd, next.newEnd, selection);
+            int delta = newEnd - oldEnd;
+            int nextDelta = next.newEnd - next.oldEnd;
+            int endAfterNext = newEnd <= next.from ? newEnd : newEnd >= next.oldEnd ? newEnd + nextDelta : next.newEnd;
+            int nextEndBefore = next.oldEnd <= from ? next.oldEnd : next.oldEnd >= newEnd ? next.oldEnd - delta : oldEnd;
+            return new Change(Math.min(from, next.from), Math.max(oldEnd, nextEndBefore), Math.max(next.newEnd, endAfterNext), selection);
         }
     }
 }
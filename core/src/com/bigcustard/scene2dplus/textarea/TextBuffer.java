@@ -0,0 +1,10 @@
+package com.bigcustard.scene2dplus.textarea;
+
+public interface TextBuffer extends CharSequence {
+    void insert(int index, CharSequence characters);
+    void delete(int fromIndex, int toIndex);
+    String substring(int fromIndex, int toIndex);
+    int lineCount();
+    int lineStart(int row);
+    int lineOf(int index);
+}
@@ -1,19 +1,89 @@
 package com.bigcustard.scene2dplus.textarea.command;
 
 import com.bigcustard.scene2dplus.command.AbstractCommand;
+import com.bigcustard.scene2dplus.command.SizedCommand;
 import com.bigcustard.scene2dplus.textarea.TextAreaModel;
 
-public abstract class AbstractTextAreaCommand extends AbstractCommand {
+import java.util.List;
+
+// Records the edits the first execution makes, then undo and redo replay them rather than running the command again
+public abstract class AbstractTextAreaCommand extends AbstractCommand implements SizedCommand {
     protected TextAreaModel model;
-    private TextAreaModel.State state;
+    private static final long COMMAND_BYTES = 96;
+    private static final long EDIT_BYTES = 96;
+    private TextAreaModel.State stateBefore;
+    private TextAreaModel.State stateAfter;
+    private List<TextAreaModel.Edit> edits;
 
     public AbstractTextAreaCommand(TextAreaModel model) {
         this.model = model;
-        state = model.state();
+    }
+
+    protected AbstractTextAreaCommand(TextAreaModel model, TextAreaModel.State stateBefore, List<TextAreaModel.Edit> edits, TextAreaModel.State stateAfter) {
+        this.model = model;
+        this.stateBefore = stateBefore;
+        this.edits = edits;
+        this.stateAfter = stateAfter;
+    }
+
+    @Override
+    public void execute() {
+        if (edits == null) {
+            stateBefore = model.state();
+            edits = model.recordEdits(() -> model.batch(this::doExecute));
+            stateAfter = model.state();
+        } else {
+            model.redo(edits, stateAfter);
+        }
+    }
+
+    protected abstract void doExecute();
+
+    public TextAreaModel model() {
+        return model;
+    }
+
+    public TextAreaModel.State stateBefore() {
+        return stateBefore;
+    }
+
+    public TextAreaModel.State stateAfter() {
+        return stateAfter;
+    }
+
+    public List<TextAreaModel.Edit> edits() {
+        return edits;
+    }
+
+    // A command that made a single edit, for commands that merge with the one after them
+    protected TextAreaModel.Edit singleEdit() {
+        return edits != null && edits.size() == 1 ? edits.get(0) : null;
+    }
+
+    protected TextAreaModel.Edit lastEdit() {
+        return edits == null || edits.isEmpty() ? null : edits.get(edits.size() - 1);
+    }
+
+    protected void merge(AbstractTextAreaCommand next) {
+        edits.addAll(next.edits);
+        stateAfter = next.stateAfter;
     }
 
     @Override
     public void undo() {
-        model.setState(state);
+        if (edits != null) {
+            model.undo(edits, stateBefore);
+        }
+    }
+
+    @Override
+    public long estimatedBytes() {
+        long bytes = COMMAND_BYTES;
+        if (edits != null) {
+            for (TextAreaModel.Edit edit : edits) {
+                bytes += EDIT_BYTES + 2 * (edit.removed().length() + edit.inserted().length());
+            }
+        }
+        return bytes;
     }
 }
@@ -17,7 +17,7 @@ public class CutCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         TextAreaModel.Caret caret = model.caret();
         if (!caret.isAreaSelected()) {
             int y = caret.location().y;
@@ -1,14 +1,28 @@
 package com.bigcustard.scene2dplus.textarea.command;
 
+import com.bigcustard.scene2dplus.command.Command;
+import com.bigcustard.scene2dplus.command.MergeableCommand;
 import com.bigcustard.scene2dplus.textarea.TextAreaModel;
 
-public class DeleteCommand extends AbstractTextAreaCommand {
+public class DeleteCommand extends AbstractTextAreaCommand implements MergeableCommand {
     public DeleteCommand(TextAreaModel model) {
         super(model);
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         model.deleteCharacter();
     }
+
+    // Deleting carries on backwards from where the last characters were removed
+    @Override
+    public boolean mergeWith(Command next) {
+        if (!(next instanceof DeleteCommand) || ((DeleteCommand) next).model != model) return false;
+        TextAreaModel.Edit last = lastEdit();
+        TextAreaModel.Edit following = ((DeleteCommand) next).singleEdit();
+        if (last == null || following == null || following.removed().isEmpty() || !following.inserted().isEmpty()) return false;
+        if (following.index() + following.removed().length() != last.index()) return false;
+        merge((DeleteCommand) next);
+        return true;
+    }
 }
@@ -8,7 +8,7 @@ public class MoveDownCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         model.caret().moveDown();
     }
 }
@@ -8,7 +8,7 @@ public class MoveRightCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         model.caret().moveRight();
     }
 }
@@ -12,7 +12,7 @@ public class MoveToCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         model.caret().setLocation(newCaretLocation);
     }
 }
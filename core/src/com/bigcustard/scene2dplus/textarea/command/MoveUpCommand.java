@@ -8,7 +8,7 @@ public class MoveUpCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         model.caret().moveUp();
     }
 }
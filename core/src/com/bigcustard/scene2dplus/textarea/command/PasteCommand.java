@@ -17,7 +17,7 @@ public class PasteCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         if (canExecute()) {
             model.insert(getClipboard().getContents());
         }
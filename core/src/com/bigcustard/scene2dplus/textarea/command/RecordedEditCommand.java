@@ -0,0 +1,16 @@
+package com.bigcustard.scene2dplus.textarea.command;
+
+import com.bigcustard.scene2dplus.textarea.TextAreaModel;
+
+import java.util.List;
+
+// Edits recorded by a command in an earlier session, which can only be undone and redone
+public class RecordedEditCommand extends AbstractTextAreaCommand {
+    public RecordedEditCommand(TextAreaModel model, TextAreaModel.State stateBefore, List<TextAreaModel.Edit> edits, TextAreaModel.State stateAfter) {
+        super(model, stateBefore, edits, stateAfter);
+    }
+
+    @Override
+    protected void doExecute() {
+    }
+}
@@ -11,7 +11,7 @@ public class ReturnCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         Matcher matcher = Pattern.compile("(\\s*)\\S.*").matcher(model.getCurrentLine());
         String characters = "\n";
         if (matcher.matches()) {
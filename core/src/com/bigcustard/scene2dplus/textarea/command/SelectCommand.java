@@ -14,7 +14,7 @@ public class SelectCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         model.caret().setSelection(startLocation, endLocation);
     }
 }
@@ -15,7 +15,7 @@ public class TabCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         model.insert(spaces);
     }
 }
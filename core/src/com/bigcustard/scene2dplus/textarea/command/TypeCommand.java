@@ -1,8 +1,10 @@
 package com.bigcustard.scene2dplus.textarea.command;
 
+import com.bigcustard.scene2dplus.command.Command;
+import com.bigcustard.scene2dplus.command.MergeableCommand;
 import com.bigcustard.scene2dplus.textarea.TextAreaModel;
 
-public class TypeCommand extends AbstractTextAreaCommand {
+public class TypeCommand extends AbstractTextAreaCommand implements MergeableCommand {
     private String typed;
 
     public TypeCommand(TextAreaModel model, String typed) {
@@ -11,7 +13,20 @@ public class TypeCommand extends AbstractTextAreaCommand {
     }
 
     @Override
-    public void execute() {
+    protected void doExecute() {
         model.insert(typed);
     }
+
+    // Typing carries on from where the last characters went in, and a new word starts a new undo step
+    @Override
+    public boolean mergeWith(Command next) {
+        if (!(next instanceof TypeCommand) || ((TypeCommand) next).model != model) return false;
+        TextAreaModel.Edit last = lastEdit();
+        TextAreaModel.Edit following = ((TypeCommand) next).singleEdit();
+        if (last == null || following == null || !following.removed().isEmpty() || following.inserted().isEmpty()) return false;
+        if (following.index() != last.index() + last.inserted().length()) return false;
+        if (Character.isWhitespace(following.inserted().charAt(0))) return false;
+        merge((TypeCommand) next);
+        return true;
+    }
 }
@@ -0,0 +1,118 @@
+package com.bigcustard.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One set of named daemon threads for all of the application's background work. Due tasks queue for the workers in
+// priority order, first come first served within a priority. A task arriving at a full queue is cancelled, not queued.
+public class TaskScheduler {
+    public static final TaskScheduler INSTANCE = new TaskScheduler("glide-tasks", 2, 256);
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final ThreadPoolExecutor workers;
+    private final int queueCapacity;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public TaskScheduler(String name, int threads, int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        this.timer = new ScheduledThreadPoolExecutor(1, threadFactory(name + "-timer"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), threadFactory(name));
+    }
+
+    public Future<?> submit(Priority priority, Runnable runnable) {
+        Task<?> task = new Task<>(priority, runnable);
+        execute(task);
+        return task;
+    }
+
+    public <T> Future<T> submit(Priority priority, Callable<T> callable) {
+        Task<T> task = new Task<>(priority, callable);
+        execute(task);
+        return task;
+    }
+
+    public Future<?> schedule(Priority priority, Runnable runnable, long delayMillis) {
+        Task<?> task = new Task<>(priority, runnable);
+        timer.schedule(() -> execute(task), delayMillis, TimeUnit.MILLISECONDS);
+        return task;
+    }
+
+    // A tick that comes round while the previous run is still queued or running is skipped, so runs never overlap
+    public Future<?> scheduleAtFixedRate(Priority priority, Runnable runnable, long initialDelayMillis, long periodMillis) {
+        AtomicBoolean busy = new AtomicBoolean();
+        return timer.scheduleAtFixedRate(() -> {
+            if (!busy.compareAndSet(false, true)) return;
+            Task<?> task = new Task<>(priority, () -> {
+                try {
+                    runnable.run();
+                } finally {
+                    busy.set(false);
+                }
+            });
+            execute(task);
+            if (task.isCancelled()) busy.set(false);
+        }, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        workers.shutdown();
+    }
+
+    public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        return workers.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void execute(Task<?> task) {
+        if (task.isCancelled()) return;
+        if (workers.isShutdown() || workers.getQueue().size() >= queueCapacity) {
+            task.cancel(false);
+        } else {
+            workers.execute(task);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public enum Priority {
+        Interactive, Autosave, Background
+    }
+
+    private class Task<T> extends FutureTask<T> implements Comparable<Task<?>> {
+        private final Priority priority;
+        private final long order = sequence.incrementAndGet();
+
+        private Task(Priority priority, Callable<T> callable) {
+            super(callable);
+            this.priority = priority;
+        }
+
+        private Task(Priority priority, Runnable runnable) {
+            super(runnable, null);
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+}
@@ -1,60 +1,98 @@
 package com.bigcustard.util;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 public class Tokenizer {
     private final String string;
-    private final String[] delimiters;
+    private final Node delimiters = new Node();
 
     public Tokenizer(String string, String[] delimiters) {
         this.string = string;
-        this.delimiters = delimiters;
+        for (String delimiter : delimiters) {
+            add(delimiter);
+        }
+    }
+
+    public Tokenizer(String[] delimiters) {
+        this(null, delimiters);
     }
 
     public List<String> run() {
-        // First, create a regular expression that matches the union of the delimiters
-        // Be aware that, in case of delimiters containing others (example && and &),
-        // the longer may be before the shorter (&& should be before &) or the regexpr
-        // parser will recognize && as two &.
-        Arrays.sort(delimiters, (o1, o2) -> -o1.compareTo(o2));
-        // Build a string that will contain the regular expression
-        StringBuilder regexpr = new StringBuilder();
-        regexpr.append('(');
-        for (String delim : delimiters) { // For each delimiter
-            if (regexpr.length() != 1) regexpr.append('|'); // Add union separator if needed
-            for (int i = 0; i < delim.length(); i++) {
-                // Add an escape character if the character is a regexp reserved char
-                regexpr.append('\\');
-                regexpr.append(delim.charAt(i));
+        return run(string);
+    }
+
+    public List<String> run(String string) {
+        List<String> res = new ArrayList<>();
+        scan(string, 0, string.length(), (start, end, delimiter) -> res.add(string.substring(start, end)));
+        return res;
+    }
+
+    // Reports each delimiter and each run of text between delimiters, in order.
+    // Where delimiters share a prefix (& and &&) the longest one that matches wins.
+    public void scan(CharSequence text, int from, int to, TokenHandler handler) {
+        int tokenStart = from;
+        int index = from;
+        while (index < to) {
+            int delimiterEnd = delimiterEnd(text, index, to);
+            if (delimiterEnd == -1) {
+                index++;
+            } else {
+                if (tokenStart != index) handler.token(tokenStart, index, false);
+                handler.token(index, delimiterEnd, true);
+                index = delimiterEnd;
+                tokenStart = delimiterEnd;
             }
         }
-        regexpr.append(')'); // Close the union
-        Pattern p = Pattern.compile(regexpr.toString());
-
-        // Now, search for the tokens
-        List<String> res = new ArrayList<String>();
-        Matcher m = p.matcher(string);
-        int pos = 0;
-        while (m.find()) { // While there's a delimiter in the string
-            if (pos != m.start()) {
-                // If there's something between the current and the previous delimiter
-                // Add it to the tokens list
-                res.add(string.substring(pos, m.start()));
-            }
-            res.add(m.group()); // watch the delimiter
-            pos = m.end(); // Remember end of delimiter
+        if (tokenStart != to) handler.token(tokenStart, to, false);
+    }
+
+    private int delimiterEnd(CharSequence text, int index, int to) {
+        int end = -1;
+        Node node = delimiters;
+        for (int i = index; i < to; i++) {
+            node = node.next(text.charAt(i));
+            if (node == null) break;
+            if (node.isDelimiter) end = i + 1;
         }
-        if (pos != string.length()) {
-            // If it remains some characters in the string after last delimiter
-            // Add this to the token list
-            res.add(string.substring(pos));
+        return end;
+    }
+
+    private void add(String delimiter) {
+        if (delimiter.isEmpty()) return;
+        Node node = delimiters;
+        for (int i = 0; i < delimiter.length(); i++) {
+            node = node.getOrAdd(delimiter.charAt(i));
+        }
+        node.isDelimiter = true;
+    }
+
+    public interface TokenHandler {
+        void token(int start, int end, boolean delimiter);
+    }
+
+    private static class Node {
+        private final Node[] asciiChildren = new Node[128];
+        private final Map<Character, Node> otherChildren = new HashMap<>();
+        private boolean isDelimiter;
+
+        private Node next(char character) {
+            return character < asciiChildren.length ? asciiChildren[character] : otherChildren.get(character);
+        }
+
+        private Node getOrAdd(char character) {
+            Node child = next(character);
+            if (child == null) {
+                child = new Node();
+                if (character < asciiChildren.length) {
+                    asciiChildren[character] = child;
+                } else {
+                    otherChildren.put(character, child);
+                }
+            }
+            return child;
         }
-        // Return the result
-        return res;
     }
 }
@@ -8,6 +8,9 @@ import java.util.function.Consumer;
 
 public class Watchable<T> implements Disposable {
     private List<Consumer<T>> watchers = new ArrayList<>();
+    private int batchDepth;
+    private boolean broadcastPending;
+    private T pendingObject;
 
     public Watchable<T> watch(Consumer<T> watcher) {
         watchers.add(watcher);
@@ -15,9 +18,37 @@ public class Watchable<T> implements Disposable {
     }
 
     public void broadcast(T object) {
+        if (batchDepth > 0) {
+            broadcastPending = true;
+            pendingObject = object;
+            return;
+        }
         watchers.forEach((l) -> l.accept(object));
     }
 
+    // Broadcasts made during a batch are held back, and the last of them goes out once when the outermost batch ends
+    public void batch(Runnable change) {
+        beginBatch();
+        try {
+            change.run();
+        } finally {
+            endBatch();
+        }
+    }
+
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void endBatch() {
+        if (--batchDepth == 0 && broadcastPending) {
+            T object = pendingObject;
+            broadcastPending = false;
+            pendingObject = null;
+            broadcast(object);
+        }
+    }
+
     @Override
     public void dispose() {
         watchers.clear();
@@ -1,28 +1,38 @@
 package com.bigcustard.glide.code;
 
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.IntMap;
+import com.bigcustard.glide.language.GroovyKeywords;
 import com.bigcustard.glide.language.Syntax;
+import com.bigcustard.glide.language.SyntaxChecker;
+import com.bigcustard.scene2dplus.textarea.TextAreaModel;
 import com.google.common.collect.ImmutableMap;
+import com.sun.management.ThreadMXBean;
 import org.apache.commons.lang3.tuple.Pair;
-import org.assertj.core.data.MapEntry;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
+import java.util.List;
 
 import static com.bigcustard.glide.code.SyntaxPart.Type.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class CodeColorCoderTest {
 	private CodeColorCoder coder;
 	@Mock private Syntax syntax;
+	@Mock private SyntaxChecker syntaxChecker;
 
 	@Before
 	public void before() {
         MockitoAnnotations.initMocks(this);
+		when(syntax.checker()).thenReturn(syntaxChecker);
 		coder = new CodeColorCoder(() -> null, syntax, ImmutableMap.of(Keyword, "BLUE", Operator, "WHITE"), "ff0000", "ff0000");
 	}
 
@@ -70,16 +80,98 @@ public class CodeColorCoderTest {
 		assertThat(coder.encode("word1 ==")).isEqualTo("[BLUE]word1[][WHITE] ==[]");
 	}
 
+    @Test
+    public void encodeSameVersionOnlyOnce() {
+        when(syntax.parseLine("word", false)).thenReturn(Arrays.asList(new SyntaxPart("word", Keyword)));
+        coder.encode("word", 1);
+        assertThat(coder.encode("word", 1)).isEqualTo("[BLUE]word[]");
+        verify(syntax, times(1)).parseLine("word", false);
+        assertThat(coder.cacheHits()).isEqualTo(1);
+        assertThat(coder.cacheMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void encodeAgainForNewVersion() {
+        when(syntax.parseLine("word", false)).thenReturn(Arrays.asList(new SyntaxPart("word", Keyword)));
+        when(syntax.parseLine("word ", false)).thenReturn(Arrays.asList(new SyntaxPart("word", Keyword), new SyntaxPart(" ", Operator)));
+        coder.encode("word", 1);
+        assertThat(coder.encode("word ", 2)).isEqualTo("[BLUE]word[][WHITE] []");
+        assertThat(coder.cacheHits()).isEqualTo(0);
+        assertThat(coder.cacheMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void encodeLinesWithoutNewlines() {
+        when(syntax.parseLine("one\n", false)).thenReturn(Arrays.asList(new SyntaxPart("one", Keyword), new SyntaxPart("\n", Operator)));
+        when(syntax.parseLine("two", false)).thenReturn(Arrays.asList(new SyntaxPart("two", Keyword)));
+        assertThat(coder.encodeLines("one\ntwo", 1)).containsExactly("[BLUE]one[][WHITE][]", "[BLUE]two[]");
+    }
+
+    @Test
+    public void encodeLinesSharesWorkWithEncode() {
+        when(syntax.parseLine("word", false)).thenReturn(Arrays.asList(new SyntaxPart("word", Keyword)));
+        coder.encode("word", 1);
+        assertThat(coder.encodeLines("word", 1)).containsExactly("[BLUE]word[]");
+        verify(syntax, times(1)).parseLine("word", false);
+    }
+
+    @Test
+    public void encodeOnlyChangedLinesForNewVersion() {
+        when(syntax.parseLine("one\n", false)).thenReturn(Arrays.asList(new SyntaxPart("one", Keyword), new SyntaxPart("\n", Operator)));
+        when(syntax.parseLine("two", false)).thenReturn(Arrays.asList(new SyntaxPart("two", Unclassified)));
+        when(syntax.parseLine("three", false)).thenReturn(Arrays.asList(new SyntaxPart("three", Keyword)));
+        coder.encode("one\ntwo", 1);
+        assertThat(coder.encode("one\nthree", 2)).isEqualTo("[BLUE]one[][WHITE]\n[][BLUE]three[]");
+        verify(syntax, times(1)).parseLine("one\n", false);
+    }
+
     @Test
     public void colorErrorLine() {
-        when(syntax.error("hello\nthere")).thenReturn(Pair.of(1, ""));
-        assertThat(coder.colorLines("hello\nthere"))
-				.containsExactly(MapEntry.<String, Color>entry(1, Color.valueOf("ff0000")));
+        when(syntaxChecker.error()).thenReturn(Pair.of(1, ""));
+        IntMap<Color> coloredLines = coder.colorLines("hello\nthere", 1);
+        assertThat(coloredLines.size).isEqualTo(1);
+        assertThat(coloredLines.get(1)).isEqualTo(Color.valueOf("ff0000"));
     }
 
     @Test
     public void doNotColorValidLine() {
-        when(syntax.error("hello\nthere")).thenReturn(null);
-        assertThat(coder.colorLines("hello\nthere")).isEmpty();
+        when(syntaxChecker.error()).thenReturn(null);
+        assertThat(coder.colorLines("hello\nthere", 1).size).isEqualTo(0);
+    }
+
+    @Test
+    public void checkSyntaxOfCurrentVersion() {
+        coder.colorLines("hello\nthere", 7);
+        verify(syntaxChecker).check("hello\nthere", 7);
+    }
+
+    @Test
+    public void steadyFrameAllocatesNothing() {
+        Pair<Integer, String> runtimeError = Pair.of(2, "bad");
+        TextAreaModel model = new TextAreaModel("def x = 1\nprintln x\n", new CodeColorCoder(() -> runtimeError, new Syntax(new GroovyKeywords(), program -> null)));
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 10; i++) {
+            drawFrame(model);
+        }
+        threads.getThreadAllocatedBytes(threadId);
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000; i++) {
+            drawFrame(model);
+        }
+        assertThat(threads.getThreadAllocatedBytes(threadId) - before).isLessThan(1024);
+    }
+
+    // Asks the model for everything the text area reads while drawing
+    private int drawFrame(TextAreaModel model) {
+        int drawn = model.lineCount() + model.maxLineLength() + model.caret().location().x;
+        List<String> lines = model.coloredTextLines();
+        for (int row = 0; row < lines.size(); row++) {
+            drawn += lines.get(row).length();
+        }
+        for (IntMap.Entry<Color> colorLine : model.getColoredLines().entries()) {
+            drawn += colorLine.key;
+        }
+        return drawn;
     }
 }
@@ -0,0 +1,187 @@
+package com.bigcustard.glide.code;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.bigcustard.scene2dplus.XY;
+import com.bigcustard.scene2dplus.command.CommandHistory;
+import com.bigcustard.scene2dplus.textarea.NullColorCoder;
+import com.bigcustard.scene2dplus.textarea.TextAreaModel;
+import com.bigcustard.scene2dplus.textarea.command.TypeCommand;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameJournalTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+    private FileHandle journalFile;
+    private String savedCode;
+    private long now;
+    private TextAreaModel model;
+    private CommandHistory history;
+    private GameJournal journal;
+
+    @Before
+    public void before() {
+        journalFile = new FileHandle(new File(folder.getRoot(), "history.journal"));
+        savedCode = "hello";
+        open();
+    }
+
+    @Test
+    public void undoEditsAfterReopening() {
+        type(" world");
+        type("\nbye");
+        save();
+        reopen();
+        assertThat(history.size()).isEqualTo(2);
+        history.undo();
+        assertThat(model.text()).isEqualTo("hello world");
+        history.undo();
+        assertThat(model.text()).isEqualTo("hello");
+        history.redo();
+        assertThat(model.text()).isEqualTo("hello world");
+    }
+
+    @Test
+    public void redoUndoneEditsAfterReopening() {
+        type(" world");
+        history.undo();
+        save();
+        reopen();
+        assertThat(model.text()).isEqualTo("hello");
+        assertThat(history.canRedo()).isTrue();
+        history.redo();
+        assertThat(model.text()).isEqualTo("hello world");
+    }
+
+    @Test
+    public void keepHistoryAcrossSessions() {
+        type(" world");
+        save();
+        reopen();
+        type("!");
+        save();
+        reopen();
+        history.undo();
+        history.undo();
+        assertThat(model.text()).isEqualTo("hello");
+    }
+
+    @Test
+    public void dropEditsWhoseCodeWasNeverSaved() {
+        type(" world");
+        save();
+        type("!");
+        try {
+            journal.save(journalFile, model.text(), () -> { throw new RuntimeException("crash"); });
+        } catch (RuntimeException e) {
+            // the code was never written, so neither was the marker for it
+        }
+        reopen();
+        assertThat(model.text()).isEqualTo("hello world");
+        assertThat(history.size()).isEqualTo(1);
+        history.undo();
+        assertThat(model.text()).isEqualTo("hello");
+    }
+
+    @Test
+    public void keepEditsWhenCrashingAfterCodeWasSaved() {
+        type(" world");
+        save();
+        type("!");
+        String code = model.text();
+        try {
+            journal.save(journalFile, code, () -> {
+                savedCode = code;
+                throw new RuntimeException("crash");
+            });
+        } catch (RuntimeException e) {
+            // the code was written, and the marker for it went out with the records before it
+        }
+        reopen();
+        assertThat(model.text()).isEqualTo("hello world!");
+        assertThat(history.size()).isEqualTo(2);
+        history.undo();
+        assertThat(model.text()).isEqualTo("hello world");
+    }
+
+    @Test
+    public void dropHistoryWhenCodeChangedOutsideGlide() {
+        type(" world");
+        save();
+        savedCode = "changed";
+        reopen();
+        assertThat(history.canUndo()).isFalse();
+    }
+
+    @Test
+    public void skipTornLines() {
+        type(" world");
+        save();
+        journalFile.writeString("0 undo\nab12 ste", true);
+        reopen();
+        type("!");
+        save();
+        reopen();
+        history.undo();
+        history.undo();
+        assertThat(model.text()).isEqualTo("hello");
+    }
+
+    @Test
+    public void compactLongJournals() {
+        reopen();
+        for (int i = 0; i < 3000; i++) {
+            type("x");
+            history.undo();
+            history.redo();
+            if (i % 100 == 0) save();
+        }
+        save();
+        assertThat(journalFile.readString().split("\n").length).isLessThanOrEqualTo(5000);
+        reopen();
+        assertThat(history.size()).isEqualTo(1000);
+        history.undo();
+        assertThat(model.text()).isEqualTo(savedCode.substring(0, savedCode.length() - 1));
+    }
+
+    @Test
+    public void recordResourceChanges() {
+        journal.resources("image", ImmutableMap.of("a.png", "alien"));
+        journal.resources("image", ImmutableMap.of("a.png", "spaceship", "b.png", "planet"));
+        journal.resources("image", ImmutableMap.of("b.png", "planet"));
+        save();
+        assertThat(journalFile.readString())
+                .contains("resource\timage\trename\ta.png\talien\tspaceship")
+                .contains("resource\timage\tadd\tb.png\tplanet")
+                .contains("resource\timage\tremove\ta.png\tspaceship");
+    }
+
+    private void type(String text) {
+        history.execute(new TypeCommand(model, text));
+    }
+
+    private void save() {
+        String code = model.text();
+        journal.save(journalFile, code, () -> savedCode = code);
+    }
+
+    private void open() {
+        model = new TextAreaModel(savedCode, new NullColorCoder());
+        String[] lines = savedCode.split("\n", -1);
+        model.caret().setLocation(new XY(lines[lines.length - 1].length(), lines.length - 1));
+        history = new CommandHistory(1000, Long.MAX_VALUE, () -> now += 5000);
+        journal = new GameJournal(savedCode);
+        history.watch(journal);
+    }
+
+    private void reopen() {
+        open();
+        journal.restore(journalFile).restoreInto(history, model);
+    }
+}
@@ -184,6 +184,6 @@ public class GameTest {
     }
 
     private Game newGame(Language language) {
-        return new Game(new Game.Token("name", language, mockFolder), "code", mockImageModel, mockSoundModel);
+        return new Game(new Game.Token("name", language, mockFolder), "code", mockImageModel, mockSoundModel, new GameJournal("code"));
     }
 }
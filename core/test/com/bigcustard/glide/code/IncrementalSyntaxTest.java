@@ -0,0 +1,108 @@
+package com.bigcustard.glide.code;
+
+import com.bigcustard.glide.code.language.Language;
+import com.bigcustard.glide.language.IncrementalSyntax;
+import com.bigcustard.glide.language.Syntax;
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.bigcustard.glide.code.SyntaxPart.Type.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncrementalSyntaxTest {
+    private Syntax syntax = Language.Groovy.syntax();
+    private IncrementalSyntax subject = new IncrementalSyntax(syntax);
+
+    @Test
+    public void firstUpdateParsesEveryLine() {
+        IncrementalSyntax.Change change = subject.update("one\ntwo\nthree");
+        assertThat(change.fromRow()).isEqualTo(0);
+        assertThat(change.insertedRows()).isEqualTo(3);
+        assertThat(subject.linesParsed()).isEqualTo(3);
+    }
+
+    @Test
+    public void unchangedProgramParsesNothing() {
+        subject.update("one\ntwo");
+        IncrementalSyntax.Change change = subject.update("one\ntwo");
+        assertThat(change.insertedRows()).isEqualTo(0);
+        assertThat(change.removedRows()).isEqualTo(0);
+        assertThat(subject.linesParsed()).isEqualTo(2);
+    }
+
+    @Test
+    public void editInMiddleOfLargeProgramParsesOnlyThatLine() {
+        String line = "if (x == 1) { println \"hello\" } // comment\n";
+        String program = Strings.repeat(line, 1000);
+        subject.update(program);
+        long linesParsed = subject.linesParsed();
+        int index = line.length() * 500 + 4;
+        IncrementalSyntax.Change change = subject.update(program.substring(0, index) + "y" + program.substring(index));
+        assertThat(change.fromRow()).isEqualTo(500);
+        assertThat(change.removedRows()).isEqualTo(1);
+        assertThat(change.insertedRows()).isEqualTo(1);
+        assertThat(subject.linesParsed() - linesParsed).isEqualTo(1);
+    }
+
+    @Test
+    public void insertingLinesParsesOnlyNewLines() {
+        subject.update("one\ntwo\nthree");
+        IncrementalSyntax.Change change = subject.update("one\nnew\nlines\ntwo\nthree");
+        assertThat(change.fromRow()).isEqualTo(1);
+        assertThat(change.removedRows()).isEqualTo(0);
+        assertThat(change.insertedRows()).isEqualTo(2);
+    }
+
+    @Test
+    public void openingQuoteReparsesUntilStateConverges() {
+        subject.update("a\nb\nc \"d\" e\nf");
+        subject.update("\"a\nb\nc \"d\" e\nf");
+        assertThat(typesOf(subject.lines())).isEqualTo(typesOf("\"a\nb\nc \"d\" e\nf"));
+    }
+
+    @Test
+    public void closingQuoteRecolorsEarlierLines() {
+        subject.update("x = \"a\nb\nc");
+        assertThat(subject.lines().get(1).parts().get(0).type()).isEqualTo(UnclosedQuote);
+        subject.update("x = \"a\nb\nc\"");
+        assertThat(subject.lines().get(1).parts().get(0).type()).isEqualTo(Quoted);
+        assertThat(typesOf(subject.lines())).isEqualTo(typesOf("x = \"a\nb\nc\""));
+    }
+
+    @Test
+    public void randomEditsMatchFullParse() {
+        String[] fragments = {"\n", "\"", " ", "x", "if", "==", "//", "(", "}", "abc", "\n\n"};
+        Random random = new Random(7);
+        StringBuilder program = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            int index = random.nextInt(program.length() + 1);
+            if (random.nextInt(4) == 0 && program.length() > 0) {
+                program.delete(index, Math.min(program.length(), index + random.nextInt(6)));
+            } else {
+                program.insert(index, fragments[random.nextInt(fragments.length)]);
+            }
+            subject.update(program.toString());
+            assertThat(typesOf(subject.lines())).isEqualTo(typesOf(program.toString()));
+        }
+    }
+
+    private String typesOf(String program) {
+        return typesOf(syntax.parse(program));
+    }
+
+    private String typesOf(List<?> partsOrLines) {
+        StringBuilder types = new StringBuilder();
+        for (Object partOrLine : partsOrLines) {
+            if (partOrLine instanceof IncrementalSyntax.Line) {
+                types.append(typesOf(((IncrementalSyntax.Line) partOrLine).parts()));
+            } else {
+                SyntaxPart part = (SyntaxPart) partOrLine;
+                types.append(Strings.repeat(part.type().name().substring(0, 1), part.text().length()));
+            }
+        }
+        return types.toString();
+    }
+}
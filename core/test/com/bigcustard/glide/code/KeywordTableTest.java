@@ -0,0 +1,47 @@
+package com.bigcustard.glide.code;
+
+import com.bigcustard.glide.language.FrameworkKeywords;
+import com.bigcustard.glide.language.GroovyKeywords;
+import com.bigcustard.glide.language.KeywordTable;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeywordTableTest {
+    private KeywordTable table = new KeywordTable(new String[] {"if", "else"}, new String[] {"sprite", "if"});
+
+    @Test
+    public void containsWordsFromEveryList() {
+        assertThat(table.contains("if")).isTrue();
+        assertThat(table.contains("else")).isTrue();
+        assertThat(table.contains("sprite")).isTrue();
+    }
+
+    @Test
+    public void doesNotContainOtherWords() {
+        assertThat(table.contains("i")).isFalse();
+        assertThat(table.contains("iff")).isFalse();
+        assertThat(table.contains("")).isFalse();
+    }
+
+    @Test
+    public void looksUpSliceOfText() {
+        assertThat(table.contains("} else {", 2, 6)).isTrue();
+        assertThat(table.contains("} else {", 2, 5)).isFalse();
+    }
+
+    @Test
+    public void containsEveryFrameworkAndLanguageKeyword() {
+        String[] framework = new FrameworkKeywords().get();
+        String[] groovy = new GroovyKeywords().get();
+        table = new KeywordTable(framework, groovy);
+        for (String word : framework) assertThat(table.contains(word)).isTrue();
+        for (String word : groovy) assertThat(table.contains(word)).isTrue();
+        assertThat(table.contains("Blues")).isFalse();
+    }
+
+    @Test
+    public void emptyTable() {
+        assertThat(new KeywordTable().contains("if")).isFalse();
+    }
+}
@@ -0,0 +1,92 @@
+package com.bigcustard.glide.code;
+
+import com.bigcustard.glide.language.SyntaxChecker;
+import com.bigcustard.util.TaskScheduler;
+import com.google.common.base.Function;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static com.bigcustard.util.TaskScheduler.Priority.Interactive;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class SyntaxCheckerTest {
+    @Mock private Function<String, Pair<Integer, String>> errorChecker;
+    @Mock private TaskScheduler scheduler;
+    @Mock private Future<?> future;
+    private SyntaxChecker checker;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(future).when(scheduler).schedule(any(TaskScheduler.Priority.class), any(Runnable.class), anyLong());
+        checker = new SyntaxChecker(errorChecker, scheduler, 300);
+    }
+
+    @Test
+    public void checksAfterDebounce() {
+        checker.check("code", 1);
+        verify(scheduler).schedule(eq(Interactive), any(Runnable.class), eq(300L));
+    }
+
+    @Test
+    public void checksOnlyWhenVersionChanges() {
+        checker.check("code", 1);
+        checker.check("code", 1);
+        verify(scheduler, times(1)).schedule(any(TaskScheduler.Priority.class), any(Runnable.class), anyLong());
+    }
+
+    @Test
+    public void newVersionCancelsPendingCheck() {
+        checker.check("code", 1);
+        checker.check("code2", 2);
+        verify(future).cancel(false);
+        verify(scheduler, times(2)).schedule(any(TaskScheduler.Priority.class), any(Runnable.class), anyLong());
+    }
+
+    @Test
+    public void publishesResult() {
+        when(errorChecker.apply("code")).thenReturn(Pair.of(3, "bad"));
+        checker.check("code", 1);
+        scheduledCheck().run();
+        assertThat(checker.error()).isEqualTo(Pair.of(3, "bad"));
+        assertThat(checker.checkedVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void tellsListenersWhenResultPublished() {
+        List<SyntaxChecker> heard = new ArrayList<>();
+        checker.addCheckedListener(heard::add);
+        checker.check("code", 1);
+        assertThat(heard).isEmpty();
+        scheduledCheck().run();
+        assertThat(heard).containsExactly(checker);
+    }
+
+    @Test
+    public void dropsResultOfStaleCheck() {
+        checker.check("code", 1);
+        Runnable staleCheck = scheduledCheck();
+        checker.check("code2", 2);
+        staleCheck.run();
+        verify(errorChecker, never()).apply("code");
+        assertThat(checker.checkedVersion()).isEqualTo(0);
+    }
+
+    private Runnable scheduledCheck() {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeastOnce()).schedule(any(TaskScheduler.Priority.class), captor.capture(), anyLong());
+        return captor.getValue();
+    }
+}
@@ -1,11 +1,16 @@
 package com.bigcustard.glide.code;
 
 import com.bigcustard.glide.code.language.Language;
+import com.bigcustard.glide.language.GroovyKeywords;
 import com.bigcustard.glide.language.Syntax;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.bigcustard.glide.code.SyntaxPart.Type.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -228,6 +233,18 @@ public class SyntaxTest {
 				new SyntaxPart("////", Comment));
 	}
 
+	@Test
+	public void partsAreSpansOverTheProgram() throws Exception {
+		String program = "// one\nwibble";
+		List<SyntaxPart> parts = syntax.parse(program);
+		assertThat(parts).hasSize(3);
+		assertThat(parts.get(0).source()).isSameAs(program);
+		assertThat(parts.get(0).start()).isEqualTo(0);
+		assertThat(parts.get(0).end()).isEqualTo(6);
+		assertThat(parts.get(1).start()).isEqualTo(6);
+		assertThat(parts.get(1).end()).isEqualTo(7);
+	}
+
 	@Test
 	public void string() throws Exception {
         assertThat(syntax.parse("prefix \"quoted\" suffix")).containsExactly(
@@ -280,6 +297,34 @@ public class SyntaxTest {
 		assertThat(syntax.isValid(program)).isFalse();
 	}
 
+	@Test
+	public void isValidNeverChecksOnCallingThread() throws InterruptedException {
+		List<Thread> checkedOn = new CopyOnWriteArrayList<>();
+		syntax = new Syntax(new GroovyKeywords(), program -> {
+			checkedOn.add(Thread.currentThread());
+			return Pair.of(0, "bad");
+		});
+		assertThat(syntax.isValid("bad")).isTrue();
+		Thread.sleep(500);
+		assertThat(checkedOn).hasSize(1).doesNotContain(Thread.currentThread());
+		assertThat(syntax.isValid("bad")).isFalse();
+		assertThat(checkedOn).hasSize(1);
+	}
+
+	@Test
+	public void checkSameProgramOnce() {
+		AtomicInteger checks = new AtomicInteger();
+		syntax = new Syntax(new GroovyKeywords(), program -> {
+			checks.incrementAndGet();
+			return program.contains("bad") ? Pair.of(0, "bad") : null;
+		});
+		assertThat(syntax.error("good")).isNull();
+		assertThat(syntax.error("bad")).isEqualTo(Pair.of(0, "bad"));
+		assertThat(syntax.error("good")).isNull();
+		assertThat(syntax.error("bad")).isEqualTo(Pair.of(0, "bad"));
+		assertThat(checks.get()).isEqualTo(2);
+	}
+
 //    @Test
 //    public void noErrorsInGoodJavascript() {
 //		useJavascriptSyntax();
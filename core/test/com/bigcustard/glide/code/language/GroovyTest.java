@@ -43,4 +43,17 @@ public class GroovyTest {
         Pair<Integer, String> errors = subject.errorChecker("}");
         assertThat(errors).isEqualTo(Pair.of(0, "unexpected token: }"));
     }
+
+    @Test
+    public void itShould_ReportErrorLineAfterPreviousCheck() {
+        subject.errorChecker("println 'fine'");
+        Pair<Integer, String> errors = subject.errorChecker("println 'fine'\nprintln 'not fine");
+        assertThat(errors.getLeft()).isEqualTo(1);
+    }
+
+    @Test
+    public void itShould_NotCheckReferencesBeyondSyntax() {
+        Pair<Integer, String> errors = subject.errorChecker("new NoSuchClass().go()");
+        assertThat(errors).isNull();
+    }
 }
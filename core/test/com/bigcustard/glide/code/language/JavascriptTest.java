@@ -0,0 +1,28 @@
+package com.bigcustard.glide.code.language;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JavascriptTest {
+    private Javascript subject = new Javascript();
+
+    @Test
+    public void itShould_NotHaveErrorsInValidJavascript() {
+        Pair<Integer, String> errors = subject.errorChecker("if (true) {\n    print(42);\n}");
+        assertThat(errors).isNull();
+    }
+
+    @Test
+    public void itShould_NotRunCheckedCode() {
+        Pair<Integer, String> errors = subject.errorChecker("throw new Error('ran');");
+        assertThat(errors).isNull();
+    }
+
+    @Test
+    public void itShould_HaveErrorsInInvalidJavascript() {
+        Pair<Integer, String> errors = subject.errorChecker("var x = 1;\nif (x {\n}");
+        assertThat(errors).isEqualTo(Pair.of(1, "Expected ) but found {"));
+    }
+}
@@ -0,0 +1,28 @@
+package com.bigcustard.glide.code.language;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PythonTest {
+    private Python subject = new Python();
+
+    @Test
+    public void itShould_NotHaveErrorsInValidPython() {
+        Pair<Integer, String> errors = subject.errorChecker("if True:\n    print 42\n");
+        assertThat(errors).isNull();
+    }
+
+    @Test
+    public void itShould_NotRunCheckedCode() {
+        Pair<Integer, String> errors = subject.errorChecker("raise Exception('ran')");
+        assertThat(errors).isNull();
+    }
+
+    @Test
+    public void itShould_HaveErrorsInInvalidPython() {
+        Pair<Integer, String> errors = subject.errorChecker("x = 1\nif x\n    print x\n");
+        assertThat(errors).isEqualTo(Pair.of(1, "mismatched input '\\n' expecting COLON"));
+    }
+}
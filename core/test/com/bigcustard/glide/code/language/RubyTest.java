@@ -43,4 +43,17 @@ public class RubyTest {
         Pair<Integer, String> errors = subject.errorChecker("puts \"hello");
         assertThat(errors).isEqualTo(Pair.of(0, "unterminated string meets end of file"));
     }
+
+    @Test
+    public void itShould_NotCarryErrorsIntoNextCheck() {
+        subject.errorChecker("puts \"hello");
+        Pair<Integer, String> errors = subject.errorChecker("puts \"hello\"");
+        assertThat(errors).isNull();
+    }
+
+    @Test
+    public void itShould_ReadNonAsciiText() {
+        Pair<Integer, String> errors = subject.errorChecker("puts \"h\u00e9llo \u2603\"\nputs \"x");
+        assertThat(errors.getLeft()).isEqualTo(1);
+    }
 }
@@ -2,10 +2,19 @@ package com.bigcustard.scene2dplus.command;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class CommandHistoryTest {
@@ -85,4 +94,189 @@ public class CommandHistoryTest {
         history.execute(command);
         assertThat(history.canRedo()).isFalse();
     }
+
+    @Test
+    public void undoAndRedoInOrder() {
+        Command first = mock(Command.class);
+        Command second = mock(Command.class);
+        history.execute(first);
+        history.execute(second);
+        history.undo();
+        history.undo();
+        history.redo();
+        InOrder inOrder = inOrder(first, second);
+        inOrder.verify(first).execute();
+        inOrder.verify(second).execute();
+        inOrder.verify(second).undo();
+        inOrder.verify(first).undo();
+        inOrder.verify(first).execute();
+    }
+
+    @Test
+    public void dropsOldestCommandBeyondMaximumCount() {
+        history = new CommandHistory(2, Long.MAX_VALUE);
+        Command oldest = mock(Command.class);
+        history.execute(oldest);
+        history.execute(command);
+        history.execute(command);
+        history.undo();
+        history.undo();
+        assertThat(history.canUndo()).isFalse();
+        assertThat(history.size()).isEqualTo(2);
+        verify(oldest, never()).undo();
+    }
+
+    @Test
+    public void dropsOldestCommandsBeyondMaximumBytes() {
+        history = new CommandHistory(100, 250);
+        for (int i = 0; i < 5; i++) {
+            history.execute(sizedCommand(100));
+        }
+        assertThat(history.size()).isEqualTo(2);
+        assertThat(history.retainedBytes()).isEqualTo(200);
+    }
+
+    @Test
+    public void keepsLatestCommandEvenIfOverMaximumBytes() {
+        history = new CommandHistory(100, 50);
+        history.execute(sizedCommand(100));
+        assertThat(history.canUndo()).isTrue();
+    }
+
+    @Test
+    public void releasesRedoChainOnNewCommand() {
+        history = new CommandHistory(100, 1000);
+        history.execute(sizedCommand(100));
+        history.execute(sizedCommand(100));
+        history.undo();
+        history.execute(sizedCommand(10));
+        assertThat(history.size()).isEqualTo(2);
+        assertThat(history.retainedBytes()).isEqualTo(110);
+    }
+
+    @Test
+    public void wrapsAroundBuffer() {
+        history = new CommandHistory(3, Long.MAX_VALUE);
+        Command[] commands = new Command[7];
+        for (int i = 0; i < commands.length; i++) {
+            commands[i] = mock(Command.class);
+            history.execute(commands[i]);
+        }
+        history.undo();
+        history.undo();
+        history.undo();
+        assertThat(history.canUndo()).isFalse();
+        verify(commands[4]).undo();
+        verify(commands[3], never()).undo();
+    }
+
+    @Test
+    public void mergesCommandWithinTimeWindow() {
+        AtomicLong now = new AtomicLong(1000);
+        history = new CommandHistory(100, Long.MAX_VALUE, now::get);
+        MergeableCommand first = mock(MergeableCommand.class);
+        when(first.mergeWith(command)).thenReturn(true);
+        history.execute(first);
+        now.addAndGet(500);
+        history.execute(command);
+        assertThat(history.size()).isEqualTo(1);
+        history.undo();
+        verify(first).undo();
+        assertThat(history.canUndo()).isFalse();
+    }
+
+    @Test
+    public void mergesIntoFullHistoryWithoutDroppingOldest() {
+        AtomicLong now = new AtomicLong(1000);
+        history = new CommandHistory(2, Long.MAX_VALUE, now::get);
+        Command oldest = mock(Command.class);
+        MergeableCommand last = mock(MergeableCommand.class);
+        when(last.mergeWith(command)).thenReturn(true);
+        history.execute(oldest);
+        history.execute(last);
+        history.execute(command);
+        history.undo();
+        history.undo();
+        verify(oldest).undo();
+    }
+
+    @Test
+    public void keepsCommandThatFailedToExecute() {
+        doThrow(new IllegalStateException()).when(command).execute();
+        try {
+            history.execute(command);
+        } catch (IllegalStateException expected) {
+        }
+        assertThat(history.canUndo()).isTrue();
+        history.undo();
+        verify(command).undo();
+    }
+
+    @Test
+    public void doesNotMergeAfterTimeWindow() {
+        AtomicLong now = new AtomicLong(1000);
+        history = new CommandHistory(100, Long.MAX_VALUE, now::get);
+        MergeableCommand first = mock(MergeableCommand.class);
+        when(first.mergeWith(command)).thenReturn(true);
+        history.execute(first);
+        now.addAndGet(1500);
+        history.execute(command);
+        assertThat(history.size()).isEqualTo(2);
+        verify(first, never()).mergeWith(command);
+    }
+
+    @Test
+    public void doesNotMergeIntoUndoneHistory() {
+        MergeableCommand first = mock(MergeableCommand.class);
+        when(first.mergeWith(command)).thenReturn(true);
+        history.execute(first);
+        history.undo();
+        history.redo();
+        history.execute(command);
+        assertThat(history.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void restoresEarlierCommandsBeneathNewOnes() {
+        Command earlier = mock(Command.class);
+        Command undone = mock(Command.class);
+        history.execute(command);
+        history.restore(Arrays.asList(earlier, undone), 1);
+        assertThat(history.size()).isEqualTo(2);
+        assertThat(history.canRedo()).isFalse();
+        history.undo();
+        history.undo();
+        verify(command).undo();
+        verify(earlier).undo();
+        verify(undone, never()).undo();
+    }
+
+    @Test
+    public void restoresUndoneCommandsIntoEmptyHistory() {
+        Command earlier = mock(Command.class);
+        Command undone = mock(Command.class);
+        history.restore(Arrays.asList(earlier, undone), 1);
+        history.redo();
+        verify(undone).execute();
+        verify(earlier, never()).execute();
+    }
+
+    @Test
+    public void tellsListenersWhatHappened() {
+        CommandHistory.Listener listener = mock(CommandHistory.Listener.class);
+        history.watch(listener);
+        history.execute(command);
+        history.undo();
+        history.redo();
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).executed(command, false);
+        inOrder.verify(listener).undone();
+        inOrder.verify(listener).redone();
+    }
+
+    private SizedCommand sizedCommand(long bytes) {
+        SizedCommand sizedCommand = mock(SizedCommand.class);
+        when(sizedCommand.estimatedBytes()).thenReturn(bytes);
+        return sizedCommand;
+    }
 }
@@ -0,0 +1,69 @@
+package com.bigcustard.scene2dplus.textarea;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.Matrix4;
+
+import java.util.Arrays;
+
+// Keeps the vertices of the glyphs drawn since the last reset, in a buffer that is reused so recording allocates nothing
+class RecordingBatch implements Batch {
+    private final Color color = new Color(Color.WHITE);
+    private final Matrix4 projection = new Matrix4();
+    private final Matrix4 transform = new Matrix4();
+    private float[] vertices = new float[4096];
+    private int vertexCount;
+
+    void reset() {
+        vertexCount = 0;
+    }
+
+    float[] vertices() {
+        return Arrays.copyOf(vertices, vertexCount);
+    }
+
+    @Override
+    public void draw(Texture texture, float[] spriteVertices, int offset, int count) {
+        if (vertexCount + count > vertices.length) vertices = Arrays.copyOf(vertices, (vertexCount + count) * 2);
+        System.arraycopy(spriteVertices, offset, vertices, vertexCount, count);
+        vertexCount += count;
+    }
+
+    @Override public void begin() {}
+    @Override public void end() {}
+    @Override public void setColor(Color tint) { color.set(tint); }
+    @Override public void setColor(float r, float g, float b, float a) { color.set(r, g, b, a); }
+    @Override public void setColor(float color) {}
+    @Override public Color getColor() { return color; }
+    @Override public float getPackedColor() { return color.toFloatBits(); }
+    @Override public void draw(Texture texture, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation, int srcX, int srcY, int srcWidth, int srcHeight, boolean flipX, boolean flipY) {}
+    @Override public void draw(Texture texture, float x, float y, float width, float height, int srcX, int srcY, int srcWidth, int srcHeight, boolean flipX, boolean flipY) {}
+    @Override public void draw(Texture texture, float x, float y, int srcX, int srcY, int srcWidth, int srcHeight) {}
+    @Override public void draw(Texture texture, float x, float y, float width, float height, float u, float v, float u2, float v2) {}
+    @Override public void draw(Texture texture, float x, float y) {}
+    @Override public void draw(Texture texture, float x, float y, float width, float height) {}
+    @Override public void draw(TextureRegion region, float x, float y) {}
+    @Override public void draw(TextureRegion region, float x, float y, float width, float height) {}
+    @Override public void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation) {}
+    @Override public void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation, boolean clockwise) {}
+    @Override public void draw(TextureRegion region, float width, float height, Affine2 transform) {}
+    @Override public void flush() {}
+    @Override public void disableBlending() {}
+    @Override public void enableBlending() {}
+    @Override public void setBlendFunction(int srcFunc, int dstFunc) {}
+    @Override public int getBlendSrcFunc() { return 0; }
+    @Override public int getBlendDstFunc() { return 0; }
+    @Override public Matrix4 getProjectionMatrix() { return projection; }
+    @Override public Matrix4 getTransformMatrix() { return transform; }
+    @Override public void setProjectionMatrix(Matrix4 projection) {}
+    @Override public void setTransformMatrix(Matrix4 transform) {}
+    @Override public void setShader(ShaderProgram shader) {}
+    @Override public ShaderProgram getShader() { return null; }
+    @Override public boolean isBlendingEnabled() { return true; }
+    @Override public boolean isDrawing() { return true; }
+    @Override public void dispose() {}
+}
@@ -0,0 +1,129 @@
+package com.bigcustard.scene2dplus.textarea;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RopeTextBufferTest {
+    private RopeTextBuffer buffer = new RopeTextBuffer("hello");
+
+    @Test
+    public void initialText() {
+        assertThat(buffer.toString()).isEqualTo("hello");
+        assertThat(buffer.length()).isEqualTo(5);
+    }
+
+    @Test
+    public void insertAtStart() {
+        buffer.insert(0, "oh ");
+        assertThat(buffer.toString()).isEqualTo("oh hello");
+    }
+
+    @Test
+    public void insertInMiddle() {
+        buffer.insert(2, "--");
+        assertThat(buffer.toString()).isEqualTo("he--llo");
+    }
+
+    @Test
+    public void insertAtEnd() {
+        buffer.insert(5, " there");
+        assertThat(buffer.toString()).isEqualTo("hello there");
+    }
+
+    @Test
+    public void delete() {
+        buffer.delete(1, 4);
+        assertThat(buffer.toString()).isEqualTo("ho");
+    }
+
+    @Test
+    public void deleteEverything() {
+        buffer.delete(0, 5);
+        assertThat(buffer.toString()).isEmpty();
+        assertThat(buffer.length()).isEqualTo(0);
+    }
+
+    @Test
+    public void substring() {
+        assertThat(buffer.substring(1, 3)).isEqualTo("el");
+    }
+
+    @Test
+    public void charAt() {
+        assertThat(buffer.charAt(4)).isEqualTo('o');
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void insertBeyondEnd() {
+        buffer.insert(6, "x");
+    }
+
+    @Test
+    public void largeTextSpanningManyLeaves() {
+        String line = Strings.repeat("0123456789", 10) + "\n";
+        buffer = new RopeTextBuffer(Strings.repeat(line, 1000));
+        buffer.insert(50_500, "inserted");
+        assertThat(buffer.substring(50_498, 50_510)).isEqualTo("9\ninserted01");
+        assertThat(buffer.length()).isEqualTo(101_008);
+    }
+
+    @Test
+    public void lineIndex() {
+        buffer = new RopeTextBuffer("one\ntwo\n\nfour");
+        assertThat(buffer.lineCount()).isEqualTo(4);
+        assertThat(buffer.lineStart(1)).isEqualTo(4);
+        assertThat(buffer.lineStart(3)).isEqualTo(9);
+        assertThat(buffer.lineOf(3)).isEqualTo(0);
+        assertThat(buffer.lineOf(4)).isEqualTo(1);
+        assertThat(buffer.lineOf(13)).isEqualTo(3);
+    }
+
+    @Test
+    public void lineIndexFollowsEdits() {
+        buffer = new RopeTextBuffer("one\ntwo");
+        buffer.insert(3, "\nand a half");
+        buffer.delete(0, 4);
+        assertThat(buffer.lineCount()).isEqualTo(2);
+        assertThat(buffer.lineStart(1)).isEqualTo(11);
+        assertThat(buffer.lineOf(12)).isEqualTo(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void lineStartBeyondLastRow() {
+        buffer.lineStart(1);
+    }
+
+    @Test
+    public void randomEditsMatchStringBuilder() {
+        Random random = new Random(42);
+        StringBuilder expected = new StringBuilder();
+        buffer = new RopeTextBuffer();
+        for (int i = 0; i < 5000; i++) {
+            int from = random.nextInt(expected.length() + 1);
+            if (random.nextInt(3) == 0) {
+                int to = Math.min(expected.length(), from + random.nextInt(50));
+                expected.delete(from, to);
+                buffer.delete(from, to);
+            } else {
+                char character = random.nextInt(5) == 0 ? '\n' : (char) ('a' + random.nextInt(26));
+                String inserted = Strings.repeat(Character.toString(character), 1 + random.nextInt(40));
+                expected.insert(from, inserted);
+                buffer.insert(from, inserted);
+            }
+        }
+        assertThat(buffer.toString()).isEqualTo(expected.toString());
+        assertThat(buffer.length()).isEqualTo(expected.length());
+        String text = expected.toString();
+        int lineStart = 0;
+        for (int row = 0; row < buffer.lineCount(); row++) {
+            assertThat(buffer.lineStart(row)).isEqualTo(lineStart);
+            assertThat(buffer.lineOf(lineStart)).isEqualTo(row);
+            lineStart = text.indexOf('\n', lineStart) + 1;
+        }
+        assertThat(lineStart).isEqualTo(0);
+    }
+}
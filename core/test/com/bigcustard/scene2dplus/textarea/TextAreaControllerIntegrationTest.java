@@ -22,13 +22,15 @@ public class TextAreaControllerIntegrationTest {
     private InputEvent event;
     @Mock private ScrollableTextArea view;
     @Mock private Actor actor;
+    private long now;
+    private long millisBetweenKeys = 5000;
 
 	@Before
 	public void before() {
 		MockitoAnnotations.initMocks(this);
 		model = new TextAreaModel(null);
 		model.clear();
-		subject = spy(new TextAreaController(model, view, new CommandHistory()));
+		subject = spy(new TextAreaController(model, view, new CommandHistory(1000, Long.MAX_VALUE, () -> now += millisBetweenKeys)));
         event = new InputEvent();
         event.setListenerActor(actor);
         doReturn(true).when(subject).isOver((Actor)anyObject(), anyFloat(), anyFloat());
@@ -183,6 +185,18 @@ public class TextAreaControllerIntegrationTest {
         assertThat(model.text()).isEqualTo("a");
 	}
 
+	@Test
+	public void undoAfterTextReplacedDoesNothing() {
+        doReturn(true).when(subject).isControlDown();
+        doReturn(false).when(subject).isShiftDown();
+		subject.keyTyped(event, 'a');
+		subject.keyTyped(event, 'b');
+		model.setText("");
+        subject.keyDown(event, Input.Keys.Z);
+
+        assertThat(model.text()).isEqualTo("");
+	}
+
 	@Test
 	public void redoKeyPressRestoresText() {
         doReturn(true).when(subject).isControlDown();
@@ -231,6 +245,21 @@ public class TextAreaControllerIntegrationTest {
         assertThat(model.text()).isEqualTo("a");
 	}
 
+	@Test
+	public void undoKeyPressRemovesQuicklyTypedWord() {
+        doReturn(true).when(subject).isControlDown();
+        doReturn(false).when(subject).isShiftDown();
+        millisBetweenKeys = 100;
+		subject.keyTyped(event, 'a');
+		subject.keyTyped(event, 'b');
+		subject.keyTyped(event, ' ');
+		subject.keyTyped(event, 'c');
+		subject.keyTyped(event, 'd');
+        subject.keyDown(event, Input.Keys.Z);
+
+        assertThat(model.text()).isEqualTo("ab");
+	}
+
 	@Test
 	public void multipleKeyPressesAddText() {
 		subject.keyTyped(event, 'a');
@@ -2,11 +2,15 @@ package com.bigcustard.scene2dplus.textarea;
 
 import com.badlogic.gdx.graphics.Color;
 import com.bigcustard.scene2dplus.XY;
-import com.google.common.collect.ImmutableMap;
+import com.badlogic.gdx.utils.IntMap;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -46,15 +50,33 @@ public class TextAreaModelTest {
 	@Test
 	public void textColorCoded() throws Exception {
 		model.setText("text");
-		when(colorCoder.encode("text")).thenReturn("encoded text");
+		when(colorCoder.encode("text", model.version())).thenReturn("encoded text");
 		assertThat(model.coloredText()).isEqualTo("encoded text");
 	}
 
+    @Test
+    public void editsChangeVersion() {
+        long version = model.version();
+        model.insert("a");
+        assertThat(model.version()).isNotEqualTo(version);
+    }
+
+    @Test
+    public void caretMovesKeepVersion() {
+        model.setText("hello\nthere");
+        long version = model.version();
+        model.caret().moveDown();
+        model.caret().setSelection(new XY(0, 0), new XY(2, 1));
+        assertThat(model.version()).isEqualTo(version);
+    }
+
     @Test
     public void textLinesColorCoded() {
         model.setText("hello\nthere");
-        when(colorCoder.colorLines("hello\nthere")).thenReturn(ImmutableMap.of(1, Color.GRAY));
-        assertThat(model.getColoredLines()).isEqualTo(ImmutableMap.of(1, Color.GRAY));
+        IntMap<Color> coloredLines = new IntMap<>();
+        coloredLines.put(1, Color.GRAY);
+        when(colorCoder.colorLines("hello\nthere", model.version())).thenReturn(coloredLines);
+        assertThat(model.getColoredLines()).isSameAs(coloredLines);
     }
 
     @Test
@@ -78,6 +100,14 @@ public class TextAreaModelTest {
         assertThat(model.getSelection()).isEqualTo("lo\nth");
     }
 
+    @Test
+    public void getSelectionBeyondEndOfText() {
+        model.setText("hello");
+        model.caret().setSelection(new XY(2, 5), new XY(1, 0));
+        assertThat(model.getSelection()).isEqualTo("ello");
+        assertThat(model.text()).isEqualTo("hello");
+    }
+
     @Test
     public void getSelectionWhenThisIsNotOne() {
         model.setText("hello\nthere");
@@ -102,4 +132,203 @@ public class TextAreaModelTest {
         model.setText("hello\nthere");
         assertThat(model.getCurrentLine()).isEqualTo("hello");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void recordEditsAsDeltas() {
+        model.setText("hello there");
+        model.caret().setSelection(new XY(0, 0), new XY(5, 0));
+        List<TextAreaModel.Edit> edits = model.recordEdits(() -> model.insert("bye"));
+        assertThat(edits).hasSize(1);
+        assertThat(edits.get(0).index()).isEqualTo(0);
+        assertThat(edits.get(0).removed()).isEqualTo("hello");
+        assertThat(edits.get(0).inserted()).isEqualTo("bye");
+    }
+
+    @Test
+    public void recordReplacedTextAsEdit() {
+        model.setText("hello");
+        TextAreaModel.State before = model.state();
+        List<TextAreaModel.Edit> edits = model.recordEdits(() -> model.setText("bye"));
+        model.undo(edits, before);
+        assertThat(model.text()).isEqualTo("hello");
+    }
+
+    @Test
+    public void undoAndRedoEdits() {
+        model.setText("hello");
+        model.caret().setLocation(new XY(5, 0));
+        TextAreaModel.State before = model.state();
+        List<TextAreaModel.Edit> edits = model.recordEdits(() -> {
+            model.insert(" there");
+            model.caret().setLocation(new XY(0, 2));
+        });
+        TextAreaModel.State after = model.state();
+        assertThat(model.text()).isEqualTo("hello there\n\n");
+        model.undo(edits, before);
+        assertThat(model.text()).isEqualTo("hello");
+        XYAssert.assertThat(model.caret().location()).at(5, 0);
+        model.redo(edits, after);
+        assertThat(model.text()).isEqualTo("hello there\n\n");
+        XYAssert.assertThat(model.caret().location()).at(0, 2);
+    }
+
+    @Test
+    public void insertNotifiesOnce() {
+        AtomicInteger changes = countChanges();
+        model.insert("hello");
+        assertThat(changes.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void insertOverSelectionNotifiesOnce() {
+        model.setText("hello there");
+        model.caret().setSelection(new XY(0, 0), new XY(5, 0));
+        AtomicInteger changes = countChanges();
+        model.insert("bye");
+        assertThat(changes.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void deleteNotifiesOnce() {
+        model.setText("hello");
+        model.caret().setLocation(new XY(5, 0));
+        AtomicInteger changes = countChanges();
+        model.deleteCharacter();
+        assertThat(changes.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void undoNotifiesOnce() {
+        model.setText("hello");
+        model.caret().setSelection(new XY(0, 0), new XY(5, 0));
+        TextAreaModel.State before = model.state();
+        List<TextAreaModel.Edit> edits = model.recordEdits(() -> model.insert("bye"));
+        AtomicInteger changes = countChanges();
+        model.undo(edits, before);
+        assertThat(changes.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void batchNotifiesOnceAtTheEnd() {
+        AtomicInteger changes = countChanges();
+        model.batch(() -> {
+            model.insert("hello");
+            model.caret().setLocation(new XY(0, 0));
+            model.insert("oh ");
+            assertThat(changes.get()).isEqualTo(0);
+        });
+        assertThat(changes.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void insertEventCarriesRange() {
+        model.setText("hello");
+        model.caret().setLocation(new XY(5, 0));
+        List<TextAreaModel.Change> changes = recordChangeEvents();
+        model.insert(" there");
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).textChanged()).isTrue();
+        assertThat(changes.get(0).from()).isEqualTo(5);
+        assertThat(changes.get(0).removedLength()).isEqualTo(0);
+        assertThat(changes.get(0).insertedLength()).isEqualTo(6);
+    }
+
+    @Test
+    public void deleteEventCarriesRange() {
+        model.setText("hello");
+        model.caret().setLocation(new XY(5, 0));
+        List<TextAreaModel.Change> changes = recordChangeEvents();
+        model.deleteCharacter();
+        assertThat(changes.get(0).from()).isEqualTo(4);
+        assertThat(changes.get(0).removedLength()).isEqualTo(1);
+        assertThat(changes.get(0).insertedLength()).isEqualTo(0);
+    }
+
+    @Test
+    public void caretMoveIsCaretOnly() {
+        model.setText("hello");
+        List<TextAreaModel.Change> changes = recordChangeEvents();
+        model.caret().moveRight();
+        assertThat(changes.get(0).caretOnly()).isTrue();
+        assertThat(changes.get(0).textChanged()).isFalse();
+    }
+
+    @Test
+    public void selectionChangeIsNotATextChange() {
+        model.setText("hello");
+        List<TextAreaModel.Change> changes = recordChangeEvents();
+        model.caret().setSelection(new XY(0, 0), new XY(2, 0));
+        assertThat(changes.get(0).selectionChanged()).isTrue();
+        assertThat(changes.get(0).textChanged()).isFalse();
+    }
+
+    @Test
+    public void batchedEditsCombineIntoOneRange() {
+        model.setText("hello there");
+        model.caret().setLocation(new XY(0, 0));
+        List<TextAreaModel.Change> changes = recordChangeEvents();
+        model.batch(() -> {
+            model.insert("oh ");
+            model.caret().setLocation(new XY(14, 0));
+            model.insert("!");
+        });
+        assertThat(model.text()).isEqualTo("oh hello there!");
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).from()).isEqualTo(0);
+        assertThat(changes.get(0).removedLength()).isEqualTo(11);
+        assertThat(changes.get(0).insertedLength()).isEqualTo(15);
+    }
+
+    @Test
+    public void undoEventCarriesRange() {
+        model.setText("hello");
+        model.caret().setSelection(new XY(1, 0), new XY(4, 0));
+        TextAreaModel.State before = model.state();
+        List<TextAreaModel.Edit> edits = model.recordEdits(() -> model.insert("ipp"));
+        List<TextAreaModel.Change> changes = recordChangeEvents();
+        model.undo(edits, before);
+        assertThat(model.text()).isEqualTo("hello");
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).from()).isEqualTo(1);
+        assertThat(changes.get(0).removedLength()).isEqualTo(3);
+        assertThat(changes.get(0).insertedLength()).isEqualTo(3);
+        assertThat(changes.get(0).selectionChanged()).isTrue();
+    }
+
+    @Test
+    public void measureLines() {
+        model.setText("hello\nthere world\n");
+        assertThat(model.lineCount()).isEqualTo(3);
+        assertThat(model.maxLineLength()).isEqualTo(11);
+        model.setText("hi");
+        assertThat(model.maxLineLength()).isEqualTo(2);
+    }
+
+    @Test
+    public void keepLongestLineUpToDateThroughEdits() {
+        model.setText("ab\nabcdef\nabc");
+        model.caret().setLocation(new XY(3, 2));
+        model.insert("defghij\nxy");
+        assertThat(model.lineCount()).isEqualTo(4);
+        assertThat(model.maxLineLength()).isEqualTo(10);
+        model.caret().setSelection(new XY(0, 1), new XY(2, 3));
+        model.deleteCharacter();
+        assertThat(model.text()).isEqualTo("ab\n");
+        assertThat(model.maxLineLength()).isEqualTo(2);
+        model.caret().setLocation(new XY(0, 1));
+        model.insert("abcd");
+        assertThat(model.maxLineLength()).isEqualTo(4);
+    }
+
+    private List<TextAreaModel.Change> recordChangeEvents() {
+        List<TextAreaModel.Change> changes = new ArrayList<>();
+        model.addChangeEventListener(changes::add);
+        return changes;
+    }
+
+    private AtomicInteger countChanges() {
+        AtomicInteger changes = new AtomicInteger();
+        model.addChangeListener(m -> changes.incrementAndGet());
+        return changes;
+    }
+}
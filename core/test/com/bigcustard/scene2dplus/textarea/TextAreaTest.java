@@ -0,0 +1,130 @@
+package com.bigcustard.scene2dplus.textarea;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.TextField;
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
+import com.badlogic.gdx.utils.IntMap;
+import com.bigcustard.scene2dplus.XY;
+import com.sun.management.ThreadMXBean;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TextAreaTest {
+    private TextAreaModel model;
+    private TextArea textArea;
+    private RecordingBatch batch = new RecordingBatch();
+
+    @Before
+    public void before() {
+        model = new TextAreaModel("hello\nworld", new NullColorCoder());
+        textArea = new TextArea(model, skin(), "code");
+        textArea.setSize(400, 300);
+        textArea.act(0);
+    }
+
+    @Test
+    public void drawUnchangedRowsInTheSamePlaceEachFrame() {
+        float[] firstFrame = drawFrame();
+        float[] secondFrame = drawFrame();
+        assertThat(firstFrame).isNotEmpty();
+        assertThat(secondFrame).isEqualTo(firstFrame);
+        assertThat(firstFrame[0]).isEqualTo(8f);
+    }
+
+    @Test
+    public void moveRowsThatShiftedDown() {
+        drawFrame();
+        model.caret().setLocation(new XY(0, 0));
+        model.insert("\n");
+        textArea.act(0);
+        float[] shifted = drawFrame();
+        TextAreaModel freshModel = new TextAreaModel("\nhello\nworld", new NullColorCoder());
+        TextArea fresh = new TextArea(freshModel, skin(), "code");
+        fresh.setSize(400, 300);
+        fresh.act(0);
+        batch.reset();
+        fresh.draw(batch, 1);
+        assertThat(shifted).isEqualTo(batch.vertices());
+    }
+
+    @Test
+    public void steadyFrameAllocatesNothing() {
+        IntMap<Color> coloredLines = new IntMap<>();
+        coloredLines.put(1, Color.RED);
+        model = new TextAreaModel("def x = 1\nprintln x\n\nx += 1\n", new NullColorCoder() {
+            @Override
+            public IntMap<Color> colorLines(String text, long version) {
+                return coloredLines;
+            }
+        });
+        model.caret().setSelection(new XY(1, 0), new XY(2, 1));
+        textArea = new TextArea(model, skin(), "code");
+        textArea.setSize(400, 300);
+        textArea.setCullingArea(new Rectangle(0, 200, 400, 100));
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 10; i++) {
+            frame();
+        }
+        threads.getThreadAllocatedBytes(threadId);
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000; i++) {
+            frame();
+        }
+        // Even one small object a frame would come to 16000 bytes; the allowance only covers the odd object the JIT
+        // materialises when it deoptimises code that had an allocation optimised away
+        assertThat(threads.getThreadAllocatedBytes(threadId) - before).isLessThan(1024);
+    }
+
+    private void frame() {
+        textArea.act(1 / 60f);
+        batch.reset();
+        textArea.draw(batch, 1);
+    }
+
+    private float[] drawFrame() {
+        batch.reset();
+        textArea.draw(batch, 1);
+        return batch.vertices();
+    }
+
+    static Skin skin() {
+        Texture texture = mock(Texture.class);
+        when(texture.getWidth()).thenReturn(1024);
+        when(texture.getHeight()).thenReturn(32);
+        TextureRegionDrawable white = new TextureRegionDrawable(new TextureRegion(texture, 1000, 0, 4, 4));
+        TextField.TextFieldStyle style = new TextField.TextFieldStyle(font(texture), Color.WHITE, white, white, white);
+        style.focusedBackground = white;
+        Skin skin = new Skin();
+        skin.add("code", style);
+        skin.add("white", white, Drawable.class);
+        return skin;
+    }
+
+    private static BitmapFont font(Texture texture) {
+        BitmapFont.BitmapFontData data = new BitmapFont.BitmapFontData();
+        data.lineHeight = 22;
+        for (char c = 32; c < 127; c++) {
+            BitmapFont.Glyph glyph = new BitmapFont.Glyph();
+            glyph.id = c;
+            glyph.srcX = (c - 32) * 8;
+            glyph.width = 8;
+            glyph.height = 16;
+            glyph.xadvance = 9;
+            data.setGlyph(c, glyph);
+        }
+        return new BitmapFont(data, new TextureRegion(texture), true);
+    }
+}
@@ -56,4 +56,25 @@ public class DeleteCommandTest {
         XYAssert.assertThat(model.caret().selection().getLeft()).at(3, 0);
         XYAssert.assertThat(model.caret().selection().getRight()).at(2, 1);
     }
+
+    @Test
+    public void mergeWithFollowingDeletes() {
+        command = new DeleteCommand(model);
+        command.execute();
+        DeleteCommand next = new DeleteCommand(model);
+        next.execute();
+        assertThat(command.mergeWith(next)).isTrue();
+        command.undo();
+        assertThat(model.text()).isEqualTo("text");
+        XYAssert.assertThat(model.caret()).at(4, 0);
+    }
+
+    @Test
+    public void doNotMergeWithTyping() {
+        command = new DeleteCommand(model);
+        command.execute();
+        TypeCommand next = new TypeCommand(model, "t");
+        next.execute();
+        assertThat(command.mergeWith(next)).isFalse();
+    }
 }
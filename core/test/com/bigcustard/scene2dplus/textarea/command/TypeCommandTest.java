@@ -74,4 +74,51 @@ public class TypeCommandTest {
         XYAssert.assertThat(model.caret().selection().getLeft()).at(3, 0);
         XYAssert.assertThat(model.caret().selection().getRight()).at(2, 1);
     }
+
+    @Test
+    public void redoAfterUndo() {
+        model.setText("hello\nthere");
+        model.caret().setSelection(new XY(3, 0), new XY(2, 1));
+        command = new TypeCommand(model, "abcd");
+        command.execute();
+        command.undo();
+        command.execute();
+        assertThat(model.text()).isEqualTo("helabcdere");
+        XYAssert.assertThat(model.caret()).at(7, 0);
+        assertThat(model.caret().isAreaSelected()).isFalse();
+    }
+
+    @Test
+    public void mergeWithFollowingCharacters() {
+        command = new TypeCommand(model, "a");
+        command.execute();
+        TypeCommand next = new TypeCommand(model, "b");
+        next.execute();
+        assertThat(command.mergeWith(next)).isTrue();
+        command.undo();
+        assertThat(model.text()).isEqualTo("");
+        command.execute();
+        assertThat(model.text()).isEqualTo("ab");
+        XYAssert.assertThat(model.caret()).at(2, 0);
+    }
+
+    @Test
+    public void doNotMergeStartOfNextWord() {
+        command = new TypeCommand(model, "a");
+        command.execute();
+        TypeCommand next = new TypeCommand(model, " ");
+        next.execute();
+        assertThat(command.mergeWith(next)).isFalse();
+    }
+
+    @Test
+    public void doNotMergeTypingElsewhere() {
+        model.setText("hello");
+        command = new TypeCommand(model, "a");
+        command.execute();
+        model.caret().moveRight(2);
+        TypeCommand next = new TypeCommand(model, "b");
+        next.execute();
+        assertThat(command.mergeWith(next)).isFalse();
+    }
 }
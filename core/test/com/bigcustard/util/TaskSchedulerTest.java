@@ -0,0 +1,97 @@
+package com.bigcustard.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bigcustard.util.TaskScheduler.Priority.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskSchedulerTest {
+    private TaskScheduler scheduler = new TaskScheduler("test", 1, 3);
+    private CountDownLatch release = new CountDownLatch(1);
+    private List<String> ran = new CopyOnWriteArrayList<>();
+
+    @After
+    public void after() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void runsHigherPriorityFirst() throws Exception {
+        blockWorker();
+        scheduler.submit(Background, () -> ran.add("background"));
+        scheduler.submit(Autosave, () -> ran.add("autosave"));
+        scheduler.submit(Interactive, () -> ran.add("interactive 1"));
+        Future<?> last = scheduler.submit(Interactive, () -> ran.add("interactive 2"));
+        release.countDown();
+        scheduler.shutdown();
+        scheduler.awaitTermination(5000);
+        assertThat(last.isCancelled()).isTrue();
+        assertThat(ran).containsExactly("interactive 1", "autosave", "background");
+    }
+
+    @Test
+    public void runsScheduledTaskAfterDelay() throws Exception {
+        Future<?> task = scheduler.schedule(Interactive, () -> ran.add("scheduled"), 10);
+        task.get(5, TimeUnit.SECONDS);
+        assertThat(ran).containsExactly("scheduled");
+    }
+
+    @Test
+    public void cancelledScheduledTaskDoesNotRun() throws Exception {
+        Future<?> task = scheduler.schedule(Interactive, () -> ran.add("scheduled"), 50);
+        task.cancel(false);
+        Thread.sleep(200);
+        assertThat(ran).isEmpty();
+    }
+
+    @Test
+    public void cancelsTasksAfterShutdown() {
+        scheduler.shutdown();
+        assertThat(scheduler.submit(Interactive, () -> ran.add("late")).isCancelled()).isTrue();
+    }
+
+    @Test
+    public void slowPeriodicTaskNeverOverlapsItself() throws Exception {
+        TaskScheduler twoWorkers = new TaskScheduler("test", 2, 10);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostAtOnce = new AtomicInteger();
+        AtomicInteger runs = new AtomicInteger();
+        Future<?> periodic = twoWorkers.scheduleAtFixedRate(Autosave, () -> {
+            mostAtOnce.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            runs.incrementAndGet();
+        }, 0, 5);
+        Thread.sleep(300);
+        periodic.cancel(false);
+        twoWorkers.shutdown();
+        assertThat(runs.get()).isGreaterThan(1);
+        assertThat(mostAtOnce.get()).isEqualTo(1);
+    }
+
+    private void blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(Interactive, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+    }
+}
@@ -1,6 +1,5 @@
 package com.bigcustard.util;
 
-import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.List;
@@ -10,7 +9,6 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class TokenizerTest {
 
     @Test
-    @Ignore
     public void itShould_ReturnNoValuesForEmptyStringAndNoDelimiters() {
         List<String> result = new Tokenizer("", new String[0]).run();
         assertThat(result).isEmpty();
@@ -33,4 +31,31 @@ public class TokenizerTest {
         List<String> result = new Tokenizer("hello,world", new String[]{":", ","}).run();
         assertThat(result).containsExactly("hello", ",", "world");
     }
+
+    @Test
+    public void itShould_PreferLongestDelimiter() {
+        List<String> result = new Tokenizer("a==b<=c&&d&e", new String[]{"=", "==", "<", "<=", "&", "&&"}).run();
+        assertThat(result).containsExactly("a", "==", "b", "<=", "c", "&&", "d", "&", "e");
+    }
+
+    @Test
+    public void itShould_ReturnAdjacentDelimitersSeparately() {
+        List<String> result = new Tokenizer("((x))", new String[]{"(", ")"}).run();
+        assertThat(result).containsExactly("(", "(", "x", ")", ")");
+    }
+
+    @Test
+    public void itShould_NotReorderDelimiters() {
+        String[] delimiters = {":", ",", "=="};
+        new Tokenizer("a:b", delimiters).run();
+        assertThat(delimiters).containsExactly(":", ",", "==");
+    }
+
+    @Test
+    public void itShould_ReportOffsetsWhenScanning() {
+        StringBuilder tokens = new StringBuilder();
+        new Tokenizer(new String[]{" / "}).scan("xa / b", 1, 6, (start, end, delimiter) ->
+                tokens.append(start).append('-').append(end).append(delimiter ? "d " : " "));
+        assertThat(tokens.toString()).isEqualTo("1-2 2-5d 5-6 ");
+    }
 }
@@ -0,0 +1,49 @@
+package com.bigcustard.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WatchableTest {
+    private Watchable<String> subject = new Watchable<>();
+    private List<String> heard = new ArrayList<>();
+
+    @Test
+    public void itShould_BroadcastImmediatelyOutsideBatch() {
+        subject.watch(heard::add);
+        subject.broadcast("one");
+        subject.broadcast("two");
+        assertThat(heard).containsExactly("one", "two");
+    }
+
+    @Test
+    public void itShould_BroadcastLastObjectOnceAtEndOfBatch() {
+        subject.watch(heard::add);
+        subject.batch(() -> {
+            subject.broadcast("one");
+            subject.broadcast("two");
+            assertThat(heard).isEmpty();
+        });
+        assertThat(heard).containsExactly("two");
+    }
+
+    @Test
+    public void itShould_WaitForOutermostBatch() {
+        subject.watch(heard::add);
+        subject.beginBatch();
+        subject.batch(() -> subject.broadcast("inner"));
+        assertThat(heard).isEmpty();
+        subject.endBatch();
+        assertThat(heard).containsExactly("inner");
+    }
+
+    @Test
+    public void itShouldNot_BroadcastEmptyBatch() {
+        subject.watch(heard::add);
+        subject.batch(() -> {});
+        assertThat(heard).isEmpty();
+    }
+}